@@ -0,0 +1,72 @@
+package com.example.benchmark;
+
+import com.example.JsonbContextResolver;
+import com.example.Todo;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbConfig;
+import jakarta.json.bind.config.PropertyNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a new {@link Jsonb} for every message, what {@code JsonbContextResolver} used to do,
+ * with the cached pretty-printing and compact instances.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonbContextResolverBenchmark {
+
+    Todo todo;
+    JsonbContextResolver resolver;
+    Jsonb compact;
+
+    @Setup
+    public void setup() {
+        todo = JsonbSerializationBenchmark.todo(1);
+        resolver = new JsonbContextResolver();
+        compact = JsonbContextResolver.create(true);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        resolver.getContext(Todo.class).close();
+        compact.close();
+    }
+
+    @Benchmark
+    public String rebuildPerCall() throws Exception {
+        JsonbConfig config = new JsonbConfig()
+                .withPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE)
+                .withFormatting(true)
+                .withNullValues(false);
+        try (var jsonb = JsonbBuilder.newBuilder().withConfig(config).build()) {
+            return jsonb.toJson(todo);
+        }
+    }
+
+    @Benchmark
+    public String cached() {
+        return resolver.getContext(Todo.class).toJson(todo);
+    }
+
+    @Benchmark
+    public String cachedCompact() {
+        return compact.toJson(todo);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.benchmark;
+
+import com.example.GreetingRecord;
+import com.example.Person;
+import com.example.Todo;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes and deserializes collections of the payloads used in the REST and JPA examples.
+ * <p>
+ * The concurrency module's {@code com.example.Todo} has the same fully qualified name and the same JSON shape as
+ * the one in the rest module, so it can not be put on the same classpath and is covered by the {@code todo} payload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonbSerializationBenchmark {
+    private static final Type TODO_LIST = new ArrayList<Todo>() {
+    }.getClass().getGenericSuperclass();
+    private static final Type GREETING_LIST = new ArrayList<GreetingRecord>() {
+    }.getClass().getGenericSuperclass();
+    private static final Type PERSON_LIST = new ArrayList<Person>() {
+    }.getClass().getGenericSuperclass();
+
+    @Param({"todo", "greeting", "person"})
+    String payload;
+
+    @Param({"10", "1000", "100000"})
+    int size;
+
+    // the value of the constants in `PropertyNamingStrategy`
+    @Param({"IDENTITY", "UPPER_CAMEL_CASE"})
+    String namingStrategy;
+
+    Jsonb jsonb;
+    Type type;
+    List<?> data;
+    String json;
+
+    @Setup
+    public void setup() {
+        jsonb = JsonbBuilder.create(new JsonbConfig().withPropertyNamingStrategy(namingStrategy));
+        switch (payload) {
+            case "todo" -> {
+                type = TODO_LIST;
+                data = IntStream.range(0, size).mapToObj(JsonbSerializationBenchmark::todo).toList();
+            }
+            case "greeting" -> {
+                type = GREETING_LIST;
+                data = IntStream.range(0, size).mapToObj(i -> new GreetingRecord("name " + i, LocalDateTime.now())).toList();
+            }
+            case "person" -> {
+                type = PERSON_LIST;
+                data = IntStream.range(0, size).mapToObj(JsonbSerializationBenchmark::person).toList();
+            }
+            default -> throw new IllegalArgumentException("unknown payload: " + payload);
+        }
+        json = jsonb.toJson(data, type);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public String serialize() {
+        return jsonb.toJson(data, type);
+    }
+
+    @Benchmark
+    public List<?> deserialize() {
+        return jsonb.fromJson(json, type);
+    }
+
+    static Todo todo(int index) {
+        var todo = new Todo("todo " + index);
+        todo.setId(UUID.randomUUID());
+        todo.setCompleted(index % 2 == 0);
+        return todo;
+    }
+
+    static Person person(int index) {
+        var person = new Person("person " + index, 20 + index % 40);
+        person.setId(UUID.randomUUID());
+        person.setGender(index % 2 == 0 ? Person.Gender.MALE : Person.Gender.FEMALE);
+        return person;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.benchmark;
+
+import com.example.Person;
+import com.example.PersonRepository;
+import com.example.PersonSummary;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads all the persons with the queries of {@code PersonRepository}: the managed entities in a transaction,
+ * the read-only entities with {@link PersonRepository#READ_ONLY_HINTS} and the {@link PersonSummary} projection.
+ * <p>
+ * Run it with the GC profiler to get the allocated bytes per query (gc.alloc.rate.norm) next to the time:
+ * {@code java -jar target/benchmarks.jar PersonQueryBenchmark -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PersonQueryBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"100000"})
+    int rows;
+
+    EntityManagerFactory emf;
+
+    @Setup
+    public void setup() {
+        emf = Persistence.createEntityManagerFactory("benchmarkPU");
+        var em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (int i = 0; i < rows; i++) {
+                var person = new Person("person " + i, 20 + i % 40);
+                person.setGender(i % 2 == 0 ? Person.Gender.MALE : Person.Gender.FEMALE);
+                em.persist(person);
+                if (i % BATCH_SIZE == BATCH_SIZE - 1) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        // start every benchmark with an empty shared cache, it is filled in the warmup
+        emf.getCache().evictAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    // what `getAllPersons` does, the transaction commit compares every person with its backup copy
+    @Benchmark
+    public List<Person> managed() {
+        var em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            var persons = em.createQuery("select p from Person p", Person.class).getResultList();
+            em.getTransaction().commit();
+            return persons;
+        } finally {
+            em.close();
+        }
+    }
+
+    // what `getAllPersonsReadOnly` does, no transaction and nothing is registered in the persistence context
+    @Benchmark
+    public List<Person> readOnly() {
+        var em = emf.createEntityManager();
+        try {
+            var query = em.createQuery("select p from Person p", Person.class);
+            PersonRepository.READ_ONLY_HINTS.forEach(query::setHint);
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    // the default projection of `findPersonSummaries`, without the salary columns
+    @Benchmark
+    public List<PersonSummary> summaries() {
+        var em = emf.createEntityManager();
+        try {
+            var query = em.createQuery(
+                    "select new com.example.PersonSummary(p.id, p.name, p.age, p.gender, p.birthDate) from Person p",
+                    PersonSummary.class);
+            PersonRepository.READ_ONLY_HINTS.forEach(query::setHint);
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.benchmark;
+
+import com.example.TimeOrderedUuid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Inserts rows with random(version 4) and time-ordered(version 7) UUID primary keys into a file based H2 database.
+ * <p>
+ * The score is the inserted rows per second. The size of the database file and the bytes per row are printed at
+ * the end of every trial, the random keys split the index pages all over the B-tree and leave them half full.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class UuidInsertBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"v4", "v7"})
+    String version;
+
+    // the rows inserted before the measurement, the random keys hurt more once the index outgrows the page cache
+    @Param({"1000000"})
+    int initialRows;
+
+    Path directory;
+    Connection connection;
+    PreparedStatement insert;
+    Supplier<UUID> ids;
+    long rows;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ids = switch (version) {
+            case "v4" -> UUID::randomUUID;
+            case "v7" -> TimeOrderedUuid::next;
+            default -> throw new IllegalArgumentException("unknown version: " + version);
+        };
+        directory = Files.createTempDirectory("uuid-insert-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("db"), "sa", "");
+        connection.setAutoCommit(false);
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person(id UUID PRIMARY KEY, name VARCHAR(255), created_at TIMESTAMP)");
+        }
+        insert = connection.prepareStatement("INSERT INTO person(id, name, created_at) VALUES (?, ?, ?)");
+        for (int i = 0; i < initialRows; i += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (var statement = connection.createStatement()) {
+            statement.execute("CHECKPOINT");
+        }
+        var bytes = Files.size(directory.resolve("db.mv.db"));
+        System.out.printf("%n[%s] rows: %d, database file: %d bytes, %.1f bytes per row%n",
+                version, rows, bytes, (double) bytes / rows);
+        insert.close();
+        connection.close();
+        deleteDirectory();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insert() throws SQLException {
+        insertBatch();
+    }
+
+    private void insertBatch() throws SQLException {
+        var now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, ids.get());
+            insert.setString(2, "person " + rows);
+            insert.setTimestamp(3, now);
+            insert.addBatch();
+            rows++;
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    private void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
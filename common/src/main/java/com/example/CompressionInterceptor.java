@@ -0,0 +1,296 @@
+package com.example;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compresses the responses with gzip or deflate, as negotiated with the {@code Accept-Encoding} request header.
+ * <p>
+ * The entity is buffered up to {@link #MIN_SIZE} bytes, the smaller ones are sent as is. The partial responses
+ * and the resources serving byte ranges are never compressed, the ranges refer to the identity bytes.
+ * The {@link Deflater}s are pooled, they hold native memory and are expensive to create for every response.
+ */
+@Provider
+public class CompressionInterceptor implements WriterInterceptor, ContainerResponseFilter {
+    static final int MIN_SIZE = 1024;
+    private static final int POOL_SIZE = 32;
+    private static final int LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final String PARTIAL_CONTENT = CompressionInterceptor.class.getName() + ".partialContent";
+
+    // gzip wraps the raw deflate data with its own header and trailer, `deflate` means the zlib format in HTTP.
+    private static final DeflaterPool GZIP_DEFLATERS = new DeflaterPool(true);
+    private static final DeflaterPool ZLIB_DEFLATERS = new DeflaterPool(false);
+
+    @Context
+    HttpHeaders httpHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        var headers = context.getHeaders();
+        if (!isCompressible(context.getMediaType())
+                || isIdentityOnly(headers)
+                || context.getProperty(PARTIAL_CONTENT) != null) {
+            context.proceed();
+            return;
+        }
+        if (!headers.containsKey(HttpHeaders.VARY)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        var encoding = negotiate(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        var output = new CompressingOutputStream(context.getOutputStream(), encoding, headers);
+        context.setOutputStream(output);
+        try {
+            context.proceed();
+            output.finish();
+        } finally {
+            output.release();
+        }
+    }
+
+    // the interceptor does not see the status, a partial response is marked for it before the entity is written.
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (responseContext.getStatus() == Response.Status.PARTIAL_CONTENT.getStatusCode()) {
+            requestContext.setProperty(PARTIAL_CONTENT, Boolean.TRUE);
+        }
+    }
+
+    // the encoded entity or the byte ranges of a resource must be sent as they are, and keep their strong tags.
+    static boolean isIdentityOnly(MultivaluedMap<String, Object> headers) {
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey("Content-Range")) {
+            return true;
+        }
+        var acceptRanges = headers.getFirst("Accept-Ranges");
+        return acceptRanges != null && !"none".equalsIgnoreCase(acceptRanges.toString().trim());
+    }
+
+    static boolean isCompressible(MediaType mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+        var type = mediaType.getType().toLowerCase(Locale.ROOT);
+        var subtype = mediaType.getSubtype().toLowerCase(Locale.ROOT);
+        return type.equals("text")
+                || subtype.equals("json") || subtype.endsWith("+json") || subtype.equals("x-ndjson")
+                || subtype.equals("xml") || subtype.endsWith("+xml")
+                || subtype.equals("javascript");
+    }
+
+    // returns the preferred one of the supported encodings, gzip wins a tie.
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        double gzip = -1, deflate = -1, any = -1;
+        for (var item : acceptEncoding.split(",")) {
+            var parts = item.split(";");
+            var coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            var q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                var param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case GZIP, "x-gzip" -> gzip = q;
+                case DEFLATE -> deflate = q;
+                case "*" -> any = q;
+                default -> {
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    // switches to the compressed output when the entity grows over the threshold.
+    static final class CompressingOutputStream extends OutputStream {
+        private final OutputStream target;
+        private final String encoding;
+        private final MultivaluedMap<String, Object> headers;
+
+        private final byte[] buffer = new byte[MIN_SIZE];
+        private int count;
+
+        private Deflater deflater;
+        private DeflaterOutputStream compressed;
+        private CRC32 crc;
+        private boolean finished;
+
+        CompressingOutputStream(OutputStream target, String encoding, MultivaluedMap<String, Object> headers) {
+            this.target = target;
+            this.encoding = encoding;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressed == null) {
+                if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+                start();
+                compress(buffer, 0, count);
+            }
+            compress(b, off, len);
+        }
+
+        // the small entities are held back until the end, a flush before the threshold is ignored.
+        @Override
+        public void flush() throws IOException {
+            if (compressed != null) {
+                compressed.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                release();
+                target.close();
+            }
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (compressed == null) {
+                target.write(buffer, 0, count);
+            } else {
+                compressed.finish();
+                if (crc != null) {
+                    writeGzipTrailer();
+                }
+            }
+            target.flush();
+        }
+
+        void release() {
+            if (deflater != null) {
+                (crc != null ? GZIP_DEFLATERS : ZLIB_DEFLATERS).release(deflater);
+                deflater = null;
+            }
+        }
+
+        private void start() throws IOException {
+            // the headers are not committed before the first byte is written to the target.
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            // the compressed bytes differ from the identity ones, the tag is still good for revalidation.
+            // the header is an EntityTag when set by Response.tag(), or the raw header value.
+            var etag = headers.getFirst(HttpHeaders.ETAG);
+            if (etag instanceof EntityTag tag && !tag.isWeak()) {
+                headers.putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue(), true));
+            } else if (etag instanceof String tag && tag.startsWith("\"")) {
+                headers.putSingle(HttpHeaders.ETAG, "W/" + tag);
+            }
+            if (GZIP.equals(encoding)) {
+                deflater = GZIP_DEFLATERS.acquire();
+                crc = new CRC32();
+                writeGzipHeader();
+            } else {
+                deflater = ZLIB_DEFLATERS.acquire();
+            }
+            compressed = new DeflaterOutputStream(target, deflater, 8192, true);
+        }
+
+        private void compress(byte[] b, int off, int len) throws IOException {
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+            compressed.write(b, off, len);
+        }
+
+        private void writeGzipHeader() throws IOException {
+            // magic number, CM = deflate, no flags, no mtime, no extra flags, OS = unknown
+            target.write(new byte[]{0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff});
+        }
+
+        private void writeGzipTrailer() throws IOException {
+            var trailer = new byte[8];
+            writeInt((int) crc.getValue(), trailer, 0);
+            writeInt((int) deflater.getBytesRead(), trailer, 4);
+            target.write(trailer);
+        }
+
+        private static void writeInt(int value, byte[] b, int offset) {
+            b[offset] = (byte) value;
+            b[offset + 1] = (byte) (value >> 8);
+            b[offset + 2] = (byte) (value >> 16);
+            b[offset + 3] = (byte) (value >> 24);
+        }
+    }
+
+    static final class DeflaterPool {
+        private final boolean nowrap;
+        private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        DeflaterPool(boolean nowrap) {
+            this.nowrap = nowrap;
+        }
+
+        Deflater acquire() {
+            var deflater = deflaters.poll();
+            return deflater != null ? deflater : new Deflater(LEVEL, nowrap);
+        }
+
+        void release(Deflater deflater) {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+}
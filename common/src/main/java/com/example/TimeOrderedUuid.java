@@ -0,0 +1,41 @@
+package com.example;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered UUIDs (version 7, RFC 9562) for the primary keys.
+ * <p>
+ * The first 48 bits are the Unix time in milliseconds, the new keys are appended at the end of the index instead
+ * of being scattered over it like the random(version 4) ones. The next 12 bits are a counter, the UUIDs generated
+ * in the same JVM are strictly increasing, also in the same millisecond, the remaining 62 bits are random.
+ */
+public final class TimeOrderedUuid {
+    private static final int COUNTER_BITS = 12;
+
+    // the milliseconds and the counter of the last UUID, the counter overflows into the milliseconds.
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedUuid() {
+    }
+
+    public static UUID next() {
+        var now = System.currentTimeMillis() << COUNTER_BITS;
+        var next = LAST.updateAndGet(last -> Math.max(last + 1, now));
+        var millis = next >>> COUNTER_BITS;
+        var counter = next & ((1L << COUNTER_BITS) - 1);
+        var mostSigBits = millis << 16 | 0x7000L | counter;
+        // the keys are not secrets, the random bits only have to avoid collisions with the other JVMs
+        var leastSigBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    // the milliseconds in the UUID, e.g. to tell when a row was inserted
+    public static long timestamp(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("not a version 7 UUID: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
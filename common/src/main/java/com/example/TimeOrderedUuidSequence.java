@@ -0,0 +1,67 @@
+package com.example;
+
+import org.eclipse.persistence.internal.databaseaccess.Accessor;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.sequencing.Sequence;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionCustomizer;
+
+import java.util.Vector;
+
+/**
+ * The EclipseLink counterpart of the hibernate module's {@code @GeneratedTimeOrderedUuid}, it generates a
+ * {@link TimeOrderedUuid} for the ids annotated with {@code @GeneratedValue(generator = TimeOrderedUuidSequence.NAME)}.
+ * <p>
+ * The sequence is registered by setting the {@code eclipselink.session.customizer} property of the persistence unit
+ * to this class.
+ */
+public class TimeOrderedUuidSequence extends Sequence implements SessionCustomizer {
+    public static final String NAME = "time-ordered-uuid";
+
+    public TimeOrderedUuidSequence() {
+        super();
+    }
+
+    public TimeOrderedUuidSequence(String name) {
+        super(name);
+    }
+
+    @Override
+    public void customize(Session session) {
+        session.getLogin().addSequence(new TimeOrderedUuidSequence(NAME));
+    }
+
+    @Override
+    public Object getGeneratedValue(Accessor accessor, AbstractSession writeSession, String seqName) {
+        return TimeOrderedUuid.next();
+    }
+
+    // the values are generated one by one, nothing is preallocated.
+    @Override
+    public Vector<?> getGeneratedVector(Accessor accessor, AbstractSession writeSession, String seqName, int size) {
+        return null;
+    }
+
+    @Override
+    public boolean shouldAcquireValueAfterInsert() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldUsePreallocation() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldUseTransaction() {
+        return false;
+    }
+
+    @Override
+    public void onConnect() {
+    }
+
+    @Override
+    public void onDisconnect() {
+    }
+}
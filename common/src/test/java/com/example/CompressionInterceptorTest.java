@@ -0,0 +1,131 @@
+package com.example;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompressionInterceptorTest {
+
+    @Test
+    public void testNegotiate() {
+        assertThat(CompressionInterceptor.negotiate(null)).isNull();
+        assertThat(CompressionInterceptor.negotiate("identity")).isNull();
+        assertThat(CompressionInterceptor.negotiate("gzip, deflate, br")).isEqualTo("gzip");
+        assertThat(CompressionInterceptor.negotiate("gzip;q=0.5, deflate")).isEqualTo("deflate");
+        assertThat(CompressionInterceptor.negotiate("gzip;q=0, deflate;q=0")).isNull();
+        assertThat(CompressionInterceptor.negotiate("*")).isEqualTo("gzip");
+    }
+
+    @Test
+    public void testIsCompressible() {
+        assertThat(CompressionInterceptor.isCompressible(MediaType.APPLICATION_JSON_TYPE)).isTrue();
+        assertThat(CompressionInterceptor.isCompressible(MediaType.TEXT_PLAIN_TYPE)).isTrue();
+        assertThat(CompressionInterceptor.isCompressible(MediaType.APPLICATION_OCTET_STREAM_TYPE)).isFalse();
+        assertThat(CompressionInterceptor.isCompressible(new MediaType("image", "png"))).isFalse();
+    }
+
+    @Test
+    public void testIsIdentityOnly() {
+        var headers = new MultivaluedHashMap<String, Object>();
+        assertThat(CompressionInterceptor.isIdentityOnly(headers)).isFalse();
+
+        headers.putSingle("Accept-Ranges", "none");
+        assertThat(CompressionInterceptor.isIdentityOnly(headers)).isFalse();
+
+        headers.putSingle("Accept-Ranges", "bytes");
+        assertThat(CompressionInterceptor.isIdentityOnly(headers)).isTrue();
+
+        headers.clear();
+        headers.putSingle("Content-Range", "bytes 0-99/1000");
+        assertThat(CompressionInterceptor.isIdentityOnly(headers)).isTrue();
+
+        headers.clear();
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, "br");
+        assertThat(CompressionInterceptor.isIdentityOnly(headers)).isTrue();
+    }
+
+    @Test
+    public void testStrongETagIsWeakenedOnlyWhenCompressed() throws Exception {
+        // the raw header values, an EntityTag needs a JAX-RS runtime
+        var headers = new MultivaluedHashMap<String, Object>();
+        headers.putSingle(HttpHeaders.ETAG, "\"small\"");
+        var output = new CompressionInterceptor.CompressingOutputStream(new ByteArrayOutputStream(), "gzip", headers);
+        output.write("small".getBytes(StandardCharsets.UTF_8));
+        output.finish();
+        output.release();
+        assertThat(headers.getFirst(HttpHeaders.ETAG)).isEqualTo("\"small\"");
+
+        headers.putSingle(HttpHeaders.ETAG, "\"large\"");
+        output = new CompressionInterceptor.CompressingOutputStream(new ByteArrayOutputStream(), "gzip", headers);
+        output.write(largeContent());
+        output.finish();
+        output.release();
+        assertThat(headers.getFirst(HttpHeaders.ETAG)).isEqualTo("W/\"large\"");
+    }
+
+    @Test
+    public void testSmallEntityIsNotCompressed() throws Exception {
+        var headers = new MultivaluedHashMap<String, Object>();
+        var target = new ByteArrayOutputStream();
+        var output = new CompressionInterceptor.CompressingOutputStream(target, "gzip", headers);
+        output.write("small".getBytes(StandardCharsets.UTF_8));
+        output.finish();
+        output.release();
+
+        assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(target.toString(StandardCharsets.UTF_8)).isEqualTo("small");
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        var headers = new MultivaluedHashMap<String, Object>();
+        var content = largeContent();
+        var target = new ByteArrayOutputStream();
+        var output = new CompressionInterceptor.CompressingOutputStream(target, "gzip", headers);
+        output.write(content);
+        output.finish();
+        output.release();
+
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(target.size()).isLessThan(content.length);
+        try (var input = new GZIPInputStream(new ByteArrayInputStream(target.toByteArray()))) {
+            assertThat(input.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        var headers = new MultivaluedHashMap<String, Object>();
+        var content = largeContent();
+        var target = new ByteArrayOutputStream();
+        var output = new CompressionInterceptor.CompressingOutputStream(target, "deflate", headers);
+        // written in small chunks, the deflater is switched on in the middle
+        for (int i = 0; i < content.length; i += 100) {
+            output.write(content, i, Math.min(100, content.length - i));
+        }
+        output.finish();
+        output.release();
+
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("deflate");
+        try (var input = new InflaterInputStream(new ByteArrayInputStream(target.toByteArray()))) {
+            assertThat(input.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    private static byte[] largeContent() {
+        var content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("{\"message\":\"Say 'Hello' to Hantsy\",\"index\":").append(i).append("}\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidTest {
+
+    @Test
+    @DisplayName("version 7 UUIDs holding the current time")
+    public void testVersionAndTimestamp() {
+        var before = System.currentTimeMillis();
+        var uuid = TimeOrderedUuid.next();
+        var after = System.currentTimeMillis();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        // the counter runs ahead of the clock when more than 4096 UUIDs are generated in a millisecond,
+        // e.g. in the other tests
+        assertThat(TimeOrderedUuid.timestamp(uuid)).isBetween(before, after + 1000);
+    }
+
+    @Test
+    @DisplayName("strictly increasing UUIDs in every thread, also in the same millisecond")
+    public void testMonotonicity() throws Exception {
+        var all = ConcurrentHashMap.<UUID>newKeySet();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var tasks = new ArrayList<Future<?>>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(executor.submit(() -> {
+                    UUID previous = null;
+                    for (int i = 0; i < 100_000; i++) {
+                        var next = TimeOrderedUuid.next();
+                        if (previous != null) {
+                            assertThat(next).isGreaterThan(previous);
+                        }
+                        all.add(next);
+                        previous = next;
+                    }
+                }));
+            }
+            for (var task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(all).hasSize(400_000);
+    }
+}
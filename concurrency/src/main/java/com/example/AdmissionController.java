@@ -0,0 +1,142 @@
+package com.example;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a new suspended request is accepted, before any work is scheduled for it.
+ * <p>
+ * A request is rejected when more of them are in flight than can be completed within the target latency at the
+ * measured throughput(Little's law), a new one would wait behind them and most likely time out anyway. Up to
+ * {@link #MIN_IN_FLIGHT} requests are always let through to measure the throughput again, never more than
+ * {@link #MAX_IN_FLIGHT}.
+ * <p>
+ * The timeout of the accepted requests follows the p99 latency of the completed ones within the min/max bounds,
+ * the timed out requests are counted apart, their latency is not known.
+ */
+@ApplicationScoped
+public class AdmissionController {
+    static final int MAX_IN_FLIGHT = Integer.getInteger("com.example.admission.max-in-flight", 10_000);
+    static final long MIN_TIMEOUT_MILLIS = 1000;
+    static final long MAX_TIMEOUT_MILLIS = 10_000;
+    static final long TARGET_LATENCY_MILLIS = Long.getLong("com.example.admission.target-latency-millis", 1000);
+    static final int MIN_IN_FLIGHT = 16;
+
+    private static final int WINDOW_SIZE = 1000;
+    // p99 is computed again after every RECOMPUTE_INTERVAL samples
+    private static final int RECOMPUTE_INTERVAL = 100;
+    // the throughput is measured over the completions in the last interval
+    private static final long THROUGHPUT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    // a ring buffer of the latest latencies in millis
+    private final long[] window = new long[WINDOW_SIZE];
+    private int samples;
+    private volatile long p99Millis;
+
+    private long intervalStarted = System.nanoTime();
+    private int intervalCompletions;
+    // the requests completed per second in the last full interval
+    private volatile double throughput;
+
+    /**
+     * @return the ticket of the accepted request, or null if the request should be rejected.
+     */
+    public Ticket admit() {
+        if (inFlight.incrementAndGet() > admissionLimit()) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+        admitted.increment();
+        return new Ticket(System.nanoTime());
+    }
+
+    // the requests the measured throughput completes within the target latency
+    public int admissionLimit() {
+        var limit = (long) (throughput * TARGET_LATENCY_MILLIS / 1000);
+        return (int) Math.max(MIN_IN_FLIGHT, Math.min(MAX_IN_FLIGHT, limit));
+    }
+
+    // twice the p99 latency
+    public long timeoutMillis() {
+        return Math.max(MIN_TIMEOUT_MILLIS, Math.min(MAX_TIMEOUT_MILLIS, p99Millis * 2));
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(p99Millis + 999));
+    }
+
+    public Stats getStats() {
+        return new Stats(inFlight.get(), admitted.sum(), rejected.sum(), timedOut.sum(), p99Millis, timeoutMillis(),
+                throughput, admissionLimit());
+    }
+
+    private synchronized void record(long millis) {
+        intervalCompletions++;
+        measureThroughput();
+        window[samples % WINDOW_SIZE] = millis;
+        samples++;
+        if (samples % RECOMPUTE_INTERVAL == 0 || samples < RECOMPUTE_INTERVAL) {
+            var sorted = Arrays.copyOf(window, Math.min(samples, WINDOW_SIZE));
+            Arrays.sort(sorted);
+            p99Millis = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+        }
+    }
+
+    // also called on a timeout, the throughput drops when the requests stop completing.
+    private synchronized void measureThroughput() {
+        var now = System.nanoTime();
+        var elapsed = now - intervalStarted;
+        if (elapsed >= THROUGHPUT_INTERVAL_NANOS) {
+            throughput = intervalCompletions * 1_000_000_000.0 / elapsed;
+            intervalCompletions = 0;
+            intervalStarted = now;
+        }
+    }
+
+    public class Ticket {
+        private final long started;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Ticket(long started) {
+            this.started = started;
+        }
+
+        public void completed() {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+        }
+
+        // the request never ran, e.g. the operation could not be scheduled, nothing is recorded.
+        public void failed() {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        // not a latency sample, the real latency is unknown, recording the timeout would push p99 to the cap.
+        public void timedOut() {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                timedOut.increment();
+                measureThroughput();
+            }
+        }
+    }
+
+    public record Stats(int inFlight, long admitted, long rejected, long timedOut, long p99Millis, long timeoutMillis,
+                        double throughput, int admissionLimit) {
+    }
+}
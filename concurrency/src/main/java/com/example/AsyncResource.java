@@ -2,14 +2,18 @@ package com.example;
 
 import jakarta.annotation.Resource;
 import jakarta.ejb.Stateless;
-import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.container.AsyncResponse;
 import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -19,29 +23,66 @@ import java.util.logging.Logger;
 public class AsyncResource {
     private static final Logger LOGGER = Logger.getLogger(AsyncResource.class.getName());
 
+    // the duration of the simulated long run operation
+    static final long OPERATION_MILLIS = 500;
+
     @Resource
-    private ManagedExecutorService executor;
+    private ManagedScheduledExecutorService scheduler;
+
+    @Inject
+    AdmissionController admissionController;
 
     @GET
     public void getAsync(final @Suspended AsyncResponse res) {
+        // shed the load early instead of queueing the requests which would time out anyway.
+        var ticket = admissionController.admit();
+        if (ticket == null) {
+            res.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, admissionController.retryAfterSeconds())
+                    .entity("Server is busy --- please try again later.").build());
+            return;
+        }
+
+        LOGGER.log(Level.FINE, " execute long run task in AsyncResource");
+        // no thread is held while the operation is in progress, the response is resumed by the timer.
+        ScheduledFuture<?> operation;
+        try {
+            operation = scheduler.schedule(
+                    () -> {
+                        if (res.resume(Response.ok("asynchronous resource").build())) {
+                            ticket.completed();
+                        }
+                    },
+                    OPERATION_MILLIS,
+                    TimeUnit.MILLISECONDS
+            );
+        } catch (RuntimeException e) {
+            // e.g. the executor rejects the task while shutting down, the ticket must not leak.
+            ticket.failed();
+            LOGGER.log(Level.WARNING, "failed to schedule the operation", e);
+            res.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, admissionController.retryAfterSeconds())
+                    .entity("Server is busy --- please try again later.").build());
+            return;
+        }
+        var timeout = admissionController.timeoutMillis();
         res.setTimeoutHandler(
                 (ar) -> {
+                    operation.cancel(false);
+                    ticket.timedOut();
                     ar.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, admissionController.retryAfterSeconds())
                             .entity("Operation timed out --- please try again.").build());
                 }
         );
-        res.setTimeout(1000, TimeUnit.MILLISECONDS);
-        executor.submit(() -> {
-            //do long run operations.
-            try {
-                LOGGER.log(Level.INFO, " execute long run task in AsyncResource");
-                //Thread.sleep(new Random().nextInt(1005));
-                Thread.sleep(500);
-            } catch (InterruptedException ex) {
-                LOGGER.log(Level.SEVERE, "error :" + ex.getMessage());
-            }
-            res.resume(Response.ok("asynchronous resource").build());
-        });
+        res.setTimeout(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    @GET
+    @Path("stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public AdmissionController.Stats getStats() {
+        return admissionController.getStats();
     }
 
 }
@@ -0,0 +1,25 @@
+package com.example;
+
+import com.example.bulkhead.BulkheadRegistry;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+@Path("bulkheads")
+@RequestScoped
+public class BulkheadResource {
+
+    @Inject
+    BulkheadRegistry registry;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<BulkheadRegistry.BulkheadStats> getStats() {
+        return registry.getStats();
+    }
+}
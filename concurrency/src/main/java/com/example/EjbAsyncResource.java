@@ -1,13 +1,17 @@
 package com.example;
 
+import jakarta.annotation.Resource;
 import jakarta.ejb.Asynchronous;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.container.AsyncResponse;
 import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Response;
 
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,19 +20,42 @@ import java.util.logging.Logger;
 public class EjbAsyncResource {
     private static final Logger LOGGER = Logger.getLogger(EjbAsyncResource.class.getName());
 
+    // the duration of the simulated long run operation
+    static final long OPERATION_MILLIS = 500;
+    // the response is not suspended forever when the scheduled task is lost or stuck
+    static final long TIMEOUT_MILLIS = 5_000;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
     @GET
     @Asynchronous
     public void getAsync(final @Suspended AsyncResponse res) {
 
-        //perform long run operations.
+        //perform long run operations, the async EJB thread is released right after scheduling it.
+        LOGGER.log(Level.FINE, " execute long run task in EjbAsyncResource");
+        ScheduledFuture<?> operation;
         try {
-            LOGGER.log(Level.INFO, " execute long run task in EjbAsyncResource");
-            Thread.sleep(500);
-        } catch (InterruptedException ex) {
-            LOGGER.log(Level.SEVERE, "error :" + ex.getMessage());
+            operation = scheduler.schedule(
+                    () -> res.resume(Response.ok("Asynchronus EJB resource").build()),
+                    OPERATION_MILLIS,
+                    TimeUnit.MILLISECONDS
+            );
+        } catch (RuntimeException e) {
+            // e.g. the executor rejects the task while shutting down, the request is not left suspended.
+            LOGGER.log(Level.WARNING, "failed to schedule the operation", e);
+            res.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity("Server is busy --- please try again later.").build());
+            return;
         }
-
-        res.resume(Response.ok("Asynchronus EJB resource").build());
+        res.setTimeoutHandler(
+                (ar) -> {
+                    operation.cancel(false);
+                    ar.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                            .entity("Operation timed out --- please try again.").build());
+                }
+        );
+        res.setTimeout(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     }
 
-}
\ No newline at end of file
+}
@@ -1,27 +1,141 @@
 package com.example;
 
+import com.example.bulkhead.Bulkhead;
+import com.example.metrics.Timed;
 import jakarta.annotation.Resource;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import jakarta.enterprise.concurrent.ManagedExecutorService;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @Stateless
 public class EjbTodoService {
-    @PersistenceContext(unitName = "defaultPU")
-    EntityManager entityManager;
+    private static final Logger LOGGER = Logger.getLogger(EjbTodoService.class.getName());
 
-    @Resource
+    public static final int QUERY_TIMEOUT_SECONDS = 5;
+    // plain JDBC, cancelling needs the running statement, which JPA does not expose. Only the columns of the list
+    // are read, the todos are not managed and have no version, they must not be merged back.
+    private static final String SELECT_ALL_TODOS = "select ID, TITLE, COMPLETED from todos";
+
+    // the queries which ended with an SQLException after they were cancelled, shared by the pooled instances.
+    // it includes the ones failed by the query or the lock timeout while the future was cancelled.
+    private static final LongAdder ABORTED_QUERIES = new LongAdder();
+    // the running statements the driver accepted to cancel.
+    private static final LongAdder CANCELLED_STATEMENTS = new LongAdder();
+
+    @Resource(lookup = "java:comp/DefaultDataSource")
+    DataSource dataSource;
+
+    @Resource(lookup = TodoService.EJB_QUERY_EXECUTOR)
     ManagedExecutorService executorService;
 
-    @jakarta.ejb.Asynchronous
-    public Future<List<Todo>> getAllTodosEjbAsync() {
-        Callable<List<Todo>> callable = () -> entityManager.createQuery("select t from Todo t", Todo.class).getResultList();
-        return executorService.submit(callable);
+    /**
+     * Runs the query on a single pool thread, the caller is not blocked.
+     * <p>
+     * Cancelling the returned future cancels the running JDBC statement, the query is also aborted by
+     * the database after {@link #QUERY_TIMEOUT_SECONDS}.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    @Timed
+    @Bulkhead(value = "todos-ejb", maxConcurrent = 4, queueSize = 0)
+    public CompletableFuture<List<Todo>> getAllTodosEjbAsync() {
+        var result = new CompletableFuture<List<Todo>>();
+        var running = new AtomicReference<Statement>();
+        var task = executorService.submit(() -> {
+            // cancelled before it is started
+            if (result.isDone()) {
+                return;
+            }
+            try (var connection = dataSource.getConnection();
+                 var statement = connection.prepareStatement(SELECT_ALL_TODOS)) {
+                statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+                running.set(statement);
+                if (result.isDone()) {
+                    return;
+                }
+                try (var rs = statement.executeQuery()) {
+                    var todos = new ArrayList<Todo>();
+                    while (rs.next() && !result.isDone()) {
+                        todos.add(toTodo(rs));
+                    }
+                    result.complete(todos);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (result.isCancelled() && e instanceof SQLException) {
+                    ABORTED_QUERIES.increment();
+                    LOGGER.log(Level.FINE, "the cancelled todos query is aborted: {0}", e.getMessage());
+                }
+                result.completeExceptionally(e);
+            } finally {
+                running.set(null);
+            }
+        });
+        result.whenComplete((todos, error) -> {
+            if (result.isCancelled()) {
+                cancel(running.get());
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    public long getAbortedQueries() {
+        return ABORTED_QUERIES.sum();
+    }
+
+    public long getCancelledStatements() {
+        return CANCELLED_STATEMENTS.sum();
+    }
+
+    private static void cancel(Statement statement) {
+        if (statement == null) {
+            return;
+        }
+        try {
+            statement.cancel();
+            CANCELLED_STATEMENTS.increment();
+            LOGGER.log(Level.FINE, "cancelled the running todos query");
+        } catch (SQLFeatureNotSupportedException e) {
+            // the query runs until it is done or times out
+            LOGGER.log(Level.WARNING, "the driver can not cancel the todos query: {0}", e.getMessage());
+        } catch (SQLException e) {
+            // e.g. it is already completed and closed
+            LOGGER.log(Level.FINE, "failed to cancel the todos query: {0}", e.getMessage());
+        }
+    }
+
+    private static Todo toTodo(ResultSet rs) throws SQLException {
+        var todo = new Todo(rs.getString("TITLE"));
+        todo.setId(toUuid(rs.getObject("ID")));
+        todo.setCompleted(rs.getBoolean("COMPLETED"));
+        return todo;
+    }
+
+    // the UUID column type depends on the database and the JPA provider.
+    private static UUID toUuid(Object value) {
+        if (value == null || value instanceof UUID) {
+            return (UUID) value;
+        }
+        if (value instanceof byte[] bytes && bytes.length == 16) {
+            var buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+        return UUID.fromString(value.toString().trim());
     }
 
 }
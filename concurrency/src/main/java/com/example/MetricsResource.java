@@ -0,0 +1,120 @@
+package com.example;
+
+import com.example.bulkhead.BulkheadRegistry;
+import com.example.metrics.ExecutorMetrics;
+import com.example.metrics.MetricsRegistry;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import org.HdrHistogram.AbstractHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the metrics in the Prometheus text format.
+ */
+@Path("metrics")
+@RequestScoped
+public class MetricsResource {
+    static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    @Inject
+    MetricsRegistry metricsRegistry;
+
+    @Inject
+    BulkheadRegistry bulkheadRegistry;
+
+    // the samples of a family follow its TYPE line, the text format does not allow a family to be split.
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public String scrape() {
+        var out = new StringBuilder(4096);
+
+        var timers = new TreeMap<String, MetricsRegistry.Timer>();
+        metricsRegistry.getTimers().forEach((name, timer) -> timers.put("method=\"" + escape(name) + "\"", timer));
+        summaries(out, "method_duration_seconds", timers,
+                MetricsRegistry.Timer::getHistogram, MetricsRegistry.Timer::getTotalNanos);
+        family(out, "method_errors_total", "counter", timers, MetricsRegistry.Timer::getErrors);
+
+        var executors = new TreeMap<String, ExecutorMetrics>();
+        metricsRegistry.getExecutors().forEach((name, executor) ->
+                executors.put("executor=\"" + escape(name) + "\"", executor));
+        family(out, "executor_max_async", "gauge", executors, ExecutorMetrics::getMaxAsync);
+        family(out, "executor_active", "gauge", executors, ExecutorMetrics::getActive);
+        family(out, "executor_queued", "gauge", executors, ExecutorMetrics::getQueued);
+        family(out, "executor_completed_total", "counter", executors, ExecutorMetrics::getCompleted);
+        family(out, "executor_rejected_total", "counter", executors, ExecutorMetrics::getRejected);
+        summaries(out, "executor_wait_seconds", executors, ExecutorMetrics::getWaitNanos,
+                executor -> (long) (executor.getWaitNanos().getMean() * executor.getWaitNanos().getTotalCount()));
+
+        var bulkheads = new LinkedHashMap<String, BulkheadRegistry.BulkheadStats>();
+        for (var bulkhead : bulkheadRegistry.getStats()) {
+            bulkheads.put("bulkhead=\"" + escape(bulkhead.name()) + "\"", bulkhead);
+        }
+        family(out, "bulkhead_max_concurrent", "gauge", bulkheads, BulkheadRegistry.BulkheadStats::maxConcurrent);
+        family(out, "bulkhead_active", "gauge", bulkheads, BulkheadRegistry.BulkheadStats::active);
+        family(out, "bulkhead_waiting", "gauge", bulkheads, BulkheadRegistry.BulkheadStats::waiting);
+        family(out, "bulkhead_saturation", "gauge", bulkheads, BulkheadRegistry.BulkheadStats::saturation);
+        family(out, "bulkhead_rejected_total", "counter", bulkheads, BulkheadRegistry.BulkheadStats::rejected);
+        return out.toString();
+    }
+
+    // the series are keyed by their labels
+    private static <T> void family(StringBuilder out, String name, String type, Map<String, T> series,
+                                   Function<T, Number> value) {
+        type(out, name, type);
+        series.forEach((labels, item) -> {
+            var number = value.apply(item);
+            if (number instanceof Double d) {
+                sample(out, name, labels, d.doubleValue());
+            } else {
+                sample(out, name, labels, number.longValue());
+            }
+        });
+    }
+
+    private static <T> void summaries(StringBuilder out, String name, Map<String, T> series,
+                                      Function<T, AbstractHistogram> histogram, ToLongFunction<T> totalNanos) {
+        type(out, name, "summary");
+        series.forEach((labels, item) -> summary(out, name, labels, histogram.apply(item), totalNanos.applyAsLong(item)));
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, AbstractHistogram histogram,
+                                long totalNanos) {
+        for (var quantile : QUANTILES) {
+            sample(out, name, labels + ",quantile=\"" + quantile + "\"",
+                    seconds(histogram.getValueAtPercentile(quantile * 100)));
+        }
+        sample(out, name + "_count", labels, histogram.getTotalCount());
+        sample(out, name + "_sum", labels, seconds(totalNanos));
+    }
+
+    private static void type(StringBuilder out, String name, String type) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append('{').append(labels).append("} ")
+                .append(String.format(Locale.ROOT, "%.9g", value)).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
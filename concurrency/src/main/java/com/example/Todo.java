@@ -3,6 +3,7 @@ package com.example;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
@@ -10,11 +11,14 @@ import java.util.UUID;
 public class Todo implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    // a time-ordered UUID is generated instead of `@GeneratedValue(strategy = GenerationType.UUID)`,
+    // the random ones are scattered over the primary key index.
+    @GeneratedValue(generator = TimeOrderedUuidSequence.NAME)
     UUID id;
 
     String title;
     boolean completed = false;
+    LocalDateTime createdAt;
 
     public Todo() {
     }
@@ -53,12 +57,28 @@ public class Todo implements Serializable {
         this.completed = completed;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     @Override
     public String toString() {
         return "Todo{" +
                 "id=" + id +
                 ", title='" + title + '\'' +
                 ", completed=" + completed +
+                ", createdAt=" + createdAt +
                 '}';
     }
 }
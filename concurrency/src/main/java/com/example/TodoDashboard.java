@@ -0,0 +1,8 @@
+package com.example;
+
+import java.util.List;
+import java.util.Map;
+
+// the results of the dashboard queries, merged into one response
+public record TodoDashboard(Map<String, Long> countsByStatus, List<Todo> recent, List<Todo> matches) {
+}
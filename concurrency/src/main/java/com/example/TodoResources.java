@@ -1,22 +1,34 @@
 package com.example;
 
+import com.example.bulkhead.Bulkhead;
 import jakarta.annotation.Resource;
 import jakarta.enterprise.concurrent.Asynchronous;
 import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.QueryTimeoutException;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ConnectionCallback;
 import jakarta.ws.rs.container.ResourceContext;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 
+import java.sql.SQLTimeoutException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Path("todos")
@@ -25,6 +37,9 @@ public class TodoResources {
 
     private static final Logger LOGGER = Logger.getLogger(TodoResources.class.getName());
 
+    static final long DASHBOARD_DEADLINE_MILLIS = 2000;
+    static final int MAX_DASHBOARD_LIMIT = 100;
+
     @Context
     ResourceContext resourceContext;
 
@@ -40,18 +55,120 @@ public class TodoResources {
     @Resource(lookup = "java:module/concurrent/MyExecutor")
     ManagedExecutorService executorService;
 
+    @Resource(lookup = TodoService.DASHBOARD_EXECUTOR)
+    ManagedExecutorService dashboardExecutorService;
+
     @GET
     @Path("getAllTodosEjbFuture")
-    public Future<List<Todo>> getAllTodosEjbFuture() {
-        return ejbTodoService.getAllTodosEjbAsync();
+    public void getAllTodosEjbFuture(@Suspended AsyncResponse res) {
+        var todos = ejbTodoService.getAllTodosEjbAsync();
+        // stop the database work when the client is gone or the response timed out.
+        res.register((ConnectionCallback) disconnected -> todos.cancel(true));
+        res.setTimeoutHandler(ar -> {
+            todos.cancel(true);
+            ar.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity("Query timed out --- please try again.").build());
+        });
+        res.setTimeout(EjbTodoService.QUERY_TIMEOUT_SECONDS + 1, TimeUnit.SECONDS);
+        todos.whenComplete((data, error) -> {
+            if (error == null) {
+                res.resume(Response.ok(data).build());
+            } else if (!todos.isCancelled()) {
+                var cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof SQLTimeoutException) {
+                    res.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                            .entity("Query timed out --- please try again.").build());
+                } else {
+                    res.resume(cause);
+                }
+            }
+        });
+    }
+
+    // forks the dashboard queries on the DashboardExecutor, the response takes as long as the slowest one.
+    // They share one deadline, the first failure or the deadline cancels the rest.
+    @GET
+    @Path("dashboard")
+    public CompletionStage<Response> getDashboard(@QueryParam("q") String q,
+                                                  @QueryParam("limit") @DefaultValue("10") int limit) {
+        var size = Math.max(1, Math.min(limit, MAX_DASHBOARD_LIMIT));
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DASHBOARD_DEADLINE_MILLIS);
+
+        var counts = fork(() -> todoService.countByStatus(remainingMillis(deadline)));
+        var recent = fork(() -> todoService.findRecent(size, remainingMillis(deadline)));
+        var matches = q == null || q.isBlank()
+                ? CompletableFuture.completedFuture(List.<Todo>of())
+                : fork(() -> todoService.searchByTitle(q.strip(), size, remainingMillis(deadline)));
+        var forks = List.<CompletableFuture<?>>of(counts, recent, matches);
+        forks.forEach(fork -> fork.whenComplete((result, error) -> {
+            if (error != null) {
+                forks.forEach(other -> other.cancel(true));
+            }
+        }));
+
+        return CompletableFuture.allOf(counts, recent, matches)
+                .orTimeout(DASHBOARD_DEADLINE_MILLIS, TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    if (error == null) {
+                        return Response.ok(new TodoDashboard(counts.join(), recent.join(), matches.join())).build();
+                    }
+                    forks.forEach(fork -> fork.cancel(true));
+                    var cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof TimeoutException || cause instanceof QueryTimeoutException) {
+                        LOGGER.log(Level.FINE, "dashboard queries missed the deadline");
+                        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                                .entity("Query timed out --- please try again.").build();
+                    }
+                    throw cause instanceof RuntimeException e ? e : new CompletionException(cause);
+                });
+    }
+
+    // cancelling a supplyAsync stage does not touch its task, here the task is cancelled too: a queued one never
+    // runs, a running one is interrupted. The JDBC drivers may ignore the interrupt, the query timeout still ends
+    // the query by the deadline.
+    private <T> CompletableFuture<T> fork(Supplier<T> query) {
+        var result = new CompletableFuture<T>();
+        var task = dashboardExecutorService.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(query.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static long remainingMillis(long deadline) {
+        var remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new CompletionException(new TimeoutException("dashboard deadline exceeded"));
+        }
+        return remaining;
     }
 
+    // the waiting requests hold their threads, they give up after a short wait.
     @GET
     @Path("getAllTodosAsync")
+    @Bulkhead(value = "todos", maxConcurrent = 20, queueSize = 50, maxWaitMillis = 100)
     public CompletableFuture<Response> getAllTodosAsync() {
         return todoService.getAllTodosAsync().thenApply(todos -> Response.ok(todos).build());
     }
 
+    @GET
+    @Path("getAllTodosIoAsync")
+    @Bulkhead(value = "todos", maxConcurrent = 20, queueSize = 50, maxWaitMillis = 100)
+    public CompletableFuture<Response> getAllTodosIoAsync() {
+        return todoService.getAllTodosIoAsync().thenApply(todos -> Response.ok(todos).build());
+    }
+
     @GET
     @Path("getAllTodosAndAsync")
     public CompletableFuture<Response> getAllTodosAndAsync() {
@@ -64,7 +181,8 @@ public class TodoResources {
     @Asynchronous
     public CompletableFuture<Response> getAllTodosAndConcurrencyAsync() {
         var todos = todoService.getAllTodos();
-        return executorService.supplyAsync(() -> todos).thenApply(data -> Response.ok(data).build());
+        return todoService.getExecutorMetrics().supplyAsync(executorService, () -> todos)
+                .thenApply(data -> Response.ok(data).build());
     }
 
     @GET
@@ -78,6 +196,8 @@ public class TodoResources {
     @POST
     @Path("async")
     public CompletionStage<Response> createTodoAsync(Todo todo) throws Exception {
+        // the id is always generated, one sent by the client is ignored.
+        todo.setId(null);
         var uriBuilder = uriInfo.getBaseUriBuilder();
         return todoService.createAsync(todo)
                 .thenApply(saved -> Response.created(uriBuilder.path("todos/{id}").build(saved.getId())).build());
@@ -86,6 +206,8 @@ public class TodoResources {
     @POST
     @Path("")
     public Response createTodo(Todo todo) throws Exception {
+        // the id is always generated, one sent by the client is ignored.
+        todo.setId(null);
         var uriBuilder = uriInfo.getBaseUriBuilder();
         var saved = todoService.create(todo);
         return Response.created(uriBuilder.path("todos/{id}").build(saved.getId())).build();
@@ -1,16 +1,24 @@
 package com.example;
 
+import com.example.metrics.ExecutorMetrics;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.Timed;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import jakarta.enterprise.concurrent.Asynchronous;
 import jakarta.enterprise.concurrent.ContextServiceDefinition;
 import jakarta.enterprise.concurrent.ManagedExecutorDefinition;
 import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
@@ -24,10 +32,42 @@ import static jakarta.enterprise.concurrent.ContextServiceDefinition.*;
 )
 @ManagedExecutorDefinition(name = "java:module/concurrent/MyExecutor",
         context = "java:app/concurrent/MyContextService",
-        maxAsync = 5
+        maxAsync = TodoService.MY_MAX_ASYNC
+)
+// for the tasks blocked on I/O most of the time, e.g. the JDBC queries, they are sized to the connection pool
+// instead of the CPUs. With Concurrency 3.1(Jakarta EE 11) on Java 21, set `virtual = true` here.
+// every family of queries has its own executor(bulkhead), together they take the whole pool, a flood of one
+// family can not starve the others of threads.
+@ManagedExecutorDefinition(name = TodoService.IO_EXECUTOR,
+        context = "java:app/concurrent/MyContextService",
+        maxAsync = TodoService.IO_MAX_ASYNC
+)
+@ManagedExecutorDefinition(name = TodoService.EJB_QUERY_EXECUTOR,
+        context = "java:app/concurrent/MyContextService",
+        maxAsync = TodoService.EJB_QUERY_MAX_ASYNC
+)
+@ManagedExecutorDefinition(name = TodoService.DASHBOARD_EXECUTOR,
+        context = "java:app/concurrent/MyContextService",
+        maxAsync = TodoService.DASHBOARD_MAX_ASYNC
 )
 @ApplicationScoped
 public class TodoService {
+    public static final String IO_EXECUTOR = "java:module/concurrent/IoExecutor";
+    // the cancellable plain JDBC queries of EjbTodoService
+    public static final String EJB_QUERY_EXECUTOR = "java:module/concurrent/EjbQueryExecutor";
+    // the queries forked by the dashboard
+    public static final String DASHBOARD_EXECUTOR = "java:module/concurrent/DashboardExecutor";
+    static final int MY_MAX_ASYNC = 5;
+
+    // the max pool size of the default JDBC connection pool in GlassFish is 32, it is split between the families.
+    static final int IO_MAX_ASYNC = 16;
+    // the todos-ejb bulkhead lets 4 queries run at a time
+    static final int EJB_QUERY_MAX_ASYNC = 4;
+    // 3 queries per dashboard, 4 dashboards at a time
+    static final int DASHBOARD_MAX_ASYNC = 12;
+
+    // in milliseconds, the dashboard queries are bounded by what is left of the request deadline
+    private static final String QUERY_TIMEOUT_HINT = "jakarta.persistence.query.timeout";
 
     @Resource(lookup = "java:module/concurrent/MyExecutor")
     ManagedExecutorService executorService;
@@ -35,20 +75,82 @@ public class TodoService {
     @PersistenceContext
     EntityManager entityManager;
 
+    @Inject
+    MetricsRegistry metricsRegistry;
+
+    ExecutorMetrics executorMetrics;
+
+    @PostConstruct
+    void init() {
+        executorMetrics = metricsRegistry.executor("MyExecutor", MY_MAX_ASYNC);
+    }
+
+    // the tasks submitted to MyExecutor are tracked in the executor metrics
+    public ExecutorMetrics getExecutorMetrics() {
+        return executorMetrics;
+    }
+
     @Asynchronous
+    @Timed
     public CompletableFuture<List<Todo>> getAllTodosAsync() {
         Supplier<List<Todo>> todos = () -> entityManager.createQuery("select t from Todo t", Todo.class).getResultList();
-        return executorService.supplyAsync(todos);
+        return executorMetrics.supplyAsync(executorService, todos);
 
 //        var todos = entityManager.createQuery("select t from Todo t", Todo.class).getResultList();
 //        return Asynchronous.Result.complete(todos);
     }
 
+    // the query runs on the I/O executor thread directly, there is no second hop.
+    @Asynchronous(executor = IO_EXECUTOR)
+    @Timed
+    public CompletableFuture<List<Todo>> getAllTodosIoAsync() {
+        var todos = entityManager.createQuery("select t from Todo t", Todo.class).getResultList();
+        return Asynchronous.Result.complete(todos);
+    }
+
+    @Timed
     public List<Todo> getAllTodos() {
         return entityManager.createQuery("select t from Todo t", Todo.class).getResultList();
     }
 
+    // the number of the todos by status, `completed` and `active`
+    @Timed
+    public Map<String, Long> countByStatus(long timeoutMillis) {
+        var counts = new LinkedHashMap<String, Long>();
+        counts.put("completed", 0L);
+        counts.put("active", 0L);
+        entityManager.createQuery("select t.completed, count(t) from Todo t group by t.completed", Object[].class)
+                .setHint(QUERY_TIMEOUT_HINT, (int) timeoutMillis)
+                .getResultList()
+                .forEach(row -> counts.put((Boolean) row[0] ? "completed" : "active", (Long) row[1]));
+        return counts;
+    }
+
+    @Timed
+    public List<Todo> findRecent(int limit, long timeoutMillis) {
+        return entityManager.createQuery("select t from Todo t order by t.createdAt desc", Todo.class)
+                .setHint(QUERY_TIMEOUT_HINT, (int) timeoutMillis)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Timed
+    public List<Todo> searchByTitle(String text, int limit, long timeoutMillis) {
+        var pattern = "%" + text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return entityManager.createQuery(
+                        "select t from Todo t where lower(t.title) like :pattern escape '\\' order by t.createdAt desc",
+                        Todo.class)
+                .setParameter("pattern", pattern)
+                .setHint(QUERY_TIMEOUT_HINT, (int) timeoutMillis)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     @Transactional
+    @Timed
     public Todo create(Todo todo) {
         entityManager.persist(todo);
         return todo;
@@ -57,8 +159,9 @@ public class TodoService {
     // when using @Transactional with @Asynchronous, only `REQUIRES_NEW` and `NOT_SUPPORTED` are supported.
     @Transactional(Transactional.TxType.REQUIRES_NEW)
     @Asynchronous
+    @Timed
     public CompletionStage<Todo> createAsync(Todo todo) {
         entityManager.persist(todo);
-        return executorService.supplyAsync(() -> todo);
+        return executorMetrics.supplyAsync(executorService, () -> todo);
     }
 }
@@ -0,0 +1,47 @@
+package com.example.bulkhead;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the concurrent calls of the annotated methods, the methods sharing the same name share the limits.
+ * <p>
+ * For the methods returning a {@link java.util.concurrent.CompletionStage}, the call is counted until the stage
+ * is completed. The limits are taken from the first annotation of a name which is called.
+ * <p>
+ * A call waiting for a free slot blocks the calling thread for up to {@link #maxWaitMillis()}, also when the method
+ * is async. On a request thread keep the wait short, or set {@link #queueSize()} to 0 to reject the calls at once.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Bulkhead {
+
+    @Nonbinding
+    String value() default "";
+
+    @Nonbinding
+    int maxConcurrent() default 10;
+
+    // the max calls waiting for a free slot, 0 means the calls are rejected at once when all the slots are in use.
+    @Nonbinding
+    int queueSize() default 10;
+
+    @Nonbinding
+    long maxWaitMillis() default 1000;
+
+    @Nonbinding
+    RejectionPolicy rejection() default RejectionPolicy.FAIL;
+
+    enum RejectionPolicy {
+        // throws a BulkheadRejectedException, mapped to 503 in the REST resources
+        FAIL,
+        // the call is skipped, the async methods return a failed future, the other ones return null
+        DROP
+    }
+}
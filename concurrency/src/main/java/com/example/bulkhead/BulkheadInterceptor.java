@@ -0,0 +1,74 @@
+package com.example.bulkhead;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Bulkhead
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class BulkheadInterceptor {
+    private static final Logger LOGGER = Logger.getLogger(BulkheadInterceptor.class.getName());
+
+    @Inject
+    BulkheadRegistry registry;
+
+    @AroundInvoke
+    public Object limit(InvocationContext context) throws Exception {
+        var config = findConfig(context.getMethod());
+        var name = config.value().isEmpty()
+                ? context.getMethod().getDeclaringClass().getSimpleName() + "." + context.getMethod().getName()
+                : config.value();
+        var partition = registry.get(name, config);
+
+        if (!partition.acquire()) {
+            if (partition.getConfig().rejection() == Bulkhead.RejectionPolicy.DROP) {
+                LOGGER.log(Level.FINE, "bulkhead {0} is full, dropped the call of {1}",
+                        new Object[]{name, context.getMethod().getName()});
+                return dropped(context.getMethod(), name);
+            }
+            throw new BulkheadRejectedException(name);
+        }
+
+        var async = false;
+        try {
+            var result = context.proceed();
+            // the slot is held until the async work is done
+            if (result instanceof CompletionStage<?> stage) {
+                async = true;
+                stage.whenComplete((value, error) -> partition.release());
+            }
+            return result;
+        } finally {
+            if (!async) {
+                partition.release();
+            }
+        }
+    }
+
+    // the async callers get a failed future, a null one would break their callbacks.
+    private static Object dropped(Method method, String name) {
+        var type = method.getReturnType();
+        if (CompletionStage.class.isAssignableFrom(type) || Future.class.isAssignableFrom(type)) {
+            return CompletableFuture.failedFuture(new BulkheadRejectedException(name));
+        }
+        if (type.isPrimitive() && type != void.class) {
+            throw new BulkheadRejectedException(name);
+        }
+        return null;
+    }
+
+    private static Bulkhead findConfig(Method method) {
+        var config = method.getAnnotation(Bulkhead.class);
+        return config != null ? config : method.getDeclaringClass().getAnnotation(Bulkhead.class);
+    }
+}
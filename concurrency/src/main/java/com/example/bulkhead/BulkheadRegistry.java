@@ -0,0 +1,98 @@
+package com.example.bulkhead;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+@ApplicationScoped
+public class BulkheadRegistry {
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    public Partition get(String name, Bulkhead config) {
+        return partitions.computeIfAbsent(name, key -> new Partition(key, config));
+    }
+
+    public List<BulkheadStats> getStats() {
+        return partitions.values().stream()
+                .map(Partition::getStats)
+                .sorted(Comparator.comparing(BulkheadStats::name))
+                .toList();
+    }
+
+    public static class Partition {
+        private final String name;
+        private final Bulkhead config;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAccumulator maxActive = new LongAccumulator(Long::max, 0);
+
+        Partition(String name, Bulkhead config) {
+            this.name = name;
+            this.config = config;
+            this.permits = new Semaphore(config.maxConcurrent(), true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Bulkhead getConfig() {
+            return config;
+        }
+
+        /**
+         * @return true if a slot is taken, it must be released by {@link #release()}.
+         */
+        public boolean acquire() throws InterruptedException {
+            if (!permits.tryAcquire()) {
+                if (waiting.incrementAndGet() > config.queueSize()) {
+                    waiting.decrementAndGet();
+                    rejected.increment();
+                    return false;
+                }
+                try {
+                    if (!permits.tryAcquire(config.maxWaitMillis(), TimeUnit.MILLISECONDS)) {
+                        rejected.increment();
+                        return false;
+                    }
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+            accepted.increment();
+            maxActive.accumulate(active());
+            return true;
+        }
+
+        public void release() {
+            permits.release();
+        }
+
+        public BulkheadStats getStats() {
+            var active = active();
+            return new BulkheadStats(name, config.maxConcurrent(), config.queueSize(),
+                    active, waiting.get(), accepted.sum(), rejected.sum(), maxActive.get(),
+                    (double) active / config.maxConcurrent());
+        }
+
+        private int active() {
+            return config.maxConcurrent() - permits.availablePermits();
+        }
+    }
+
+    // saturation is the part of the slots in use, from 0 to 1.
+    public record BulkheadStats(String name, int maxConcurrent, int queueSize,
+                                int active, int waiting, long accepted, long rejected, long maxActive,
+                                double saturation) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.bulkhead;
+
+import jakarta.ejb.ApplicationException;
+
+// not wrapped in an EJBException when it is thrown from an EJB.
+@ApplicationException
+public class BulkheadRejectedException extends RuntimeException {
+    private final String bulkhead;
+
+    public BulkheadRejectedException(String bulkhead) {
+        super("Bulkhead " + bulkhead + " is full.");
+        this.bulkhead = bulkhead;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bulkhead;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+@Provider
+public class BulkheadRejectedExceptionMapper implements ExceptionMapper<BulkheadRejectedException> {
+    @Override
+    public Response toResponse(BulkheadRejectedException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, 1)
+                .entity(exception.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.event;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the tasks of the same key one after another in submission order, the tasks of the keys on different
+ * stripes run in parallel on the underlying executor.
+ * <p>
+ * No thread is dedicated to a stripe, every stripe is a chain of the tasks submitted to it.
+ */
+public class KeyStripedExecutor {
+    private final Executor executor;
+    private final CompletableFuture<?>[] tails;
+
+    public KeyStripedExecutor(Executor executor, int stripes) {
+        this.executor = executor;
+        this.tails = new CompletableFuture<?>[stripes];
+        for (int i = 0; i < stripes; i++) {
+            tails[i] = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public int stripeOf(Object key) {
+        var hash = Objects.hashCode(key);
+        return Math.floorMod(hash ^ (hash >>> 16), tails.length);
+    }
+
+    public CompletableFuture<Void> execute(Object key, Runnable task) {
+        return executeOnStripe(stripeOf(key), task);
+    }
+
+    public CompletableFuture<Void> executeOnStripe(int stripe, Runnable task) {
+        synchronized (tails) {
+            // a failed task does not stop the following ones
+            var next = tails[stripe].handle((result, error) -> null).thenRunAsync(task, executor);
+            tails[stripe] = next;
+            return next;
+        }
+    }
+}
@@ -13,8 +13,8 @@ public class NotificationObserver {
     @Inject
     TodoCompletedHandler todoCompletedHandler;
 
-    public void onTodoCompletedEvent(@ObservesAsync TodoCompleted event) {
-        LOGGER.log(Level.INFO, "observes TodoCompleted event:{0}", event);
-        todoCompletedHandler.handleTodoCompletedEvent(event);
+    public void onTodoCompletedEvents(@ObservesAsync TodoCompletedBatch batch) {
+        LOGGER.log(Level.FINE, "observes {0} TodoCompleted events", batch.size());
+        todoCompletedHandler.handleTodoCompletedEvents(batch);
     }
 }
@@ -1,49 +1,394 @@
 package com.example.event;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorDefinition;
 import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
 import jakarta.enterprise.event.Event;
 import jakarta.enterprise.event.NotificationOptions;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.enterprise.inject.spi.ObserverMethod;
 import jakarta.inject.Inject;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
+/**
+ * Queues the TodoCompleted events and delivers them to the observers in micro-batches.
+ * <p>
+ * A batch is fired when it has {@link #MAX_BATCH_SIZE} events, or {@link #LINGER_MILLIS} after its first event.
+ * At most {@link #MAX_IN_FLIGHT_BATCHES} batches are delivered at a time, the next one is not taken from the queue
+ * before one of them is done. When the queue is full, the sender waits up to {@link #OFFER_TIMEOUT_MILLIS} for a free
+ * slot, then the event is dropped.
+ * <p>
+ * The observers of {@link TodoCompletedBatch} get the batch, the observers of a single {@link TodoCompleted} still
+ * get every event of the batch, one after another in the order they are sent.
+ * <p>
+ * The events are written to a {@link TodoCompletedJournal} before they are queued and acknowledged when the
+ * observers have returned, a failed delivery is retried up to {@link #MAX_DELIVERY_ATTEMPTS} times. The events
+ * still not delivered are left in the journal and sent again at the next startup(at-least-once).
+ * <p>
+ * In the {@link DeliveryMode#PARALLEL} mode, the observers are notified in parallel, the events of the same todo
+ * still reach every observer in order.
+ */
+// the events are delivered on their own executor, a slow query elsewhere does not hold them up.
+// an observer running longer than all the attempts of a delivery is reported by the server as hung.
+@ManagedExecutorDefinition(name = "java:module/concurrent/NotificationExecutor",
+        maxAsync = 4,
+        hungTaskThreshold = NotificationSender.NOTIFICATION_TIMEOUT_MILLIS * NotificationSender.MAX_DELIVERY_ATTEMPTS
+)
 @ApplicationScoped
 public class NotificationSender {
     private static final Logger LOGGER = Logger.getLogger(NotificationSender.class.getName());
 
+    static final int QUEUE_CAPACITY = 10_000;
+    static final int MAX_BATCH_SIZE = 100;
+    // one batch per thread of the executor
+    static final int MAX_IN_FLIGHT_BATCHES = 4;
+    static final long LINGER_MILLIS = 20;
+    static final long OFFER_TIMEOUT_MILLIS = 100;
+    static final long NOTIFICATION_TIMEOUT_MILLIS = 1000;
+    static final int MAX_DELIVERY_ATTEMPTS = 3;
+    static final long RETRY_DELAY_MILLIS = 50;
+    static final int STRIPES = 16;
+    static final String JOURNAL_DIRECTORY_PROPERTY = "com.example.notification.journal";
+    // set by GlassFish to the directory of the server instance
+    static final String INSTANCE_ROOT_PROPERTY = "com.sun.aas.instanceRoot";
+
+    @Inject
+    Event<TodoCompletedBatch> todoCompletedEvents;
+
     @Inject
     Event<TodoCompleted> todoCompletedEvent;
 
-    @Resource
+    @Resource(lookup = "java:module/concurrent/NotificationExecutor")
     ManagedExecutorService executorService;
+
+    @Resource
+    ManagedThreadFactory threadFactory;
+
+    @Inject
+    BeanManager beanManager;
+
+    private volatile DeliveryMode deliveryMode =
+            DeliveryMode.valueOf(System.getProperty("com.example.notification.mode", DeliveryMode.SERIAL.name()));
+    private final Map<ObserverMethod<?>, KeyStripedExecutor> observerExecutors = new ConcurrentHashMap<>();
+
     AtomicLong sentCounter = new AtomicLong(0L);
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // released when the delivery of a batch is done, the events wait in the bounded queue until then.
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT_BATCHES);
+    private TodoCompletedJournal journal;
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void init() {
+        try {
+            journal = new TodoCompletedJournal(journalDirectory(), QUEUE_CAPACITY * 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        running = true;
+        dispatcher = threadFactory.newThread(this::dispatch);
+        dispatcher.start();
+
+        var undelivered = journal.replay();
+        if (!undelivered.isEmpty()) {
+            LOGGER.log(Level.INFO, "replaying {0} undelivered TodoCompleted events", undelivered.size());
+        }
+        for (var entry : undelivered) {
+            try {
+                queue.put(new Pending(entry.sequence(), entry.event(), new CompletableFuture<>()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // the journal must survive a restart, by default it is kept in the data of the server instance, not in the
+    // working directory of the process.
+    static Path journalDirectory() {
+        var configured = System.getProperty(JOURNAL_DIRECTORY_PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        var instanceRoot = System.getProperty(INSTANCE_ROOT_PROPERTY);
+        var base = instanceRoot != null
+                ? Paths.get(instanceRoot, "data")
+                : Paths.get(System.getProperty("java.io.tmpdir"));
+        return base.resolve("todo-completed-journal").toAbsolutePath();
+    }
+
+    // starts the sender with the application, the undelivered events are not left until the first send.
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        LOGGER.log(Level.FINE, "notification sender is started, {0} events pending", journal.pending());
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(1));
+        if (!queue.isEmpty()) {
+            LOGGER.log(Level.WARNING, "{0} events are not delivered, they are sent again at the next startup", queue.size());
+        }
+        journal.close();
+    }
 
     public AtomicLong getSentCounter() {
         return sentCounter;
     }
 
-    public void send(Long index) {
+    public DeliveryMode getDeliveryMode() {
+        return deliveryMode;
+    }
+
+    public void setDeliveryMode(DeliveryMode deliveryMode) {
+        this.deliveryMode = deliveryMode;
+    }
+
+    public NotificationStats getStats() {
+        return new NotificationStats(queue.size(), sentCounter.get(), dropped.sum(), failed.sum(), retried.sum(),
+                batches.sum(), journal.pending());
+    }
+
+    /**
+     * @return completed when the event is delivered to the observers, or failed if it is dropped.
+     */
+    public CompletionStage<TodoCompleted> send(Long index) {
         var event = new TodoCompleted(index);
-        LOGGER.log(Level.INFO, "sending event:{0}", new Object[]{event});
-        todoCompletedEvent
-                .fireAsync(
-                        event,
-                        NotificationOptions.builder()
-                                .setExecutor(executorService)
-                                //.set("weld.async.notification.mode", "SERIAL")//SERIAL (default), PARALLEL.
-                                .set("weld.async.notification.timeout", 1000)
-                                .build()
-                )
-                .thenAccept(this::afterSent);
-
-    }
-
-    private void afterSent(TodoCompleted event) {
-        var count = sentCounter.incrementAndGet();
-        LOGGER.log(Level.INFO, "after sent: index:{0}, event: {1}", new Object[]{count, event});
+        var pending = new Pending(journal.append(event), event, new CompletableFuture<>());
+        LOGGER.log(Level.FINE, "sending event:{0}", new Object[]{pending.event()});
+        try {
+            // the back-pressure, the sender is slowed down when the observers can not keep up.
+            if (!queue.offer(pending, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                drop(pending, new RejectedExecutionException("The event queue is full."));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drop(pending, e);
+        }
+        return pending.delivered();
+    }
+
+    // the sender is told, the event is not sent again.
+    private void drop(Pending pending, Exception cause) {
+        dropped.increment();
+        journal.ack(pending.sequence());
+        pending.delivered().completeExceptionally(cause);
+    }
+
+    private void dispatch() {
+        var batch = new ArrayList<Pending>(MAX_BATCH_SIZE);
+        while (running) {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            var fired = false;
+            try {
+                var first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                    var remaining = deadline - System.nanoTime();
+                    if (batch.size() == MAX_BATCH_SIZE || remaining <= 0) {
+                        break;
+                    }
+                    var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                fire(List.copyOf(batch));
+                fired = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "failed to fire the TodoCompleted events", e);
+                failed.add(batch.size());
+                batch.forEach(pending -> pending.delivered().completeExceptionally(e));
+            } finally {
+                if (!fired) {
+                    inFlight.release();
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void fire(List<Pending> pending) {
+        var batch = new TodoCompletedBatch(pending.stream().map(Pending::event).toList());
+        batches.increment();
+        var delivery = deliveryMode == DeliveryMode.PARALLEL
+                ? fireParallel(batch)
+                : fireSerial(batch, 1);
+        delivery.whenComplete((delivered, error) -> {
+            inFlight.release();
+            if (error != null) {
+                // not acknowledged, the events are sent again at the next startup
+                LOGGER.log(Level.WARNING, "failed to deliver a batch of " + batch.size() + " events", error);
+                failed.add(batch.size());
+                pending.forEach(it -> it.delivered().completeExceptionally(error));
+                return;
+            }
+            pending.forEach(it -> journal.ack(it.sequence()));
+            journal.checkpoint();
+            var count = sentCounter.addAndGet(batch.size());
+            LOGGER.log(Level.FINE, "after sent: {0} events, total: {1}", new Object[]{batch.size(), count});
+            pending.forEach(it -> it.delivered().complete(it.event()));
+        });
+    }
+
+    // a retry notifies all the observers again, also the ones which got the batch already.
+    private CompletableFuture<Void> fireSerial(TodoCompletedBatch batch, int attempt) {
+        var batchDelivery = todoCompletedEvents.fireAsync(batch, notificationOptions()).toCompletableFuture();
+        return CompletableFuture.allOf(batchDelivery, fireEach(batch.events()))
+                .exceptionallyCompose(error -> {
+                    if (attempt >= MAX_DELIVERY_ATTEMPTS) {
+                        return CompletableFuture.failedFuture(error);
+                    }
+                    LOGGER.log(Level.FINE, "retrying a batch of {0} events, attempt: {1}",
+                            new Object[]{batch.size(), attempt + 1});
+                    retried.add(batch.size());
+                    var delayed = CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS * attempt,
+                            TimeUnit.MILLISECONDS, executorService);
+                    return CompletableFuture.supplyAsync(() -> batch, delayed)
+                            .thenCompose(it -> fireSerial(it, attempt + 1));
+                });
+    }
+
+    // the next event is fired when the observers have returned from the previous one, the order is kept.
+    private CompletableFuture<Void> fireEach(List<TodoCompleted> events) {
+        var delivery = CompletableFuture.<Void>completedFuture(null);
+        if (!hasAsyncObservers(events.get(0))) {
+            return delivery;
+        }
+        for (var event : events) {
+            delivery = delivery.thenCompose(ignored -> todoCompletedEvent.fireAsync(event, notificationOptions())
+                    .thenAccept(delivered -> {
+                    }));
+        }
+        return delivery;
+    }
+
+    private NotificationOptions notificationOptions() {
+        return NotificationOptions.builder()
+                .setExecutor(executorService)
+                //.set("weld.async.notification.mode", "SERIAL")//SERIAL (default), PARALLEL.
+                .set("weld.async.notification.timeout", NOTIFICATION_TIMEOUT_MILLIS)
+                .build();
+    }
+
+    private boolean hasAsyncObservers(Object event) {
+        return beanManager.resolveObserverMethods(event).stream().anyMatch(ObserverMethod::isAsync);
+    }
+
+    // Weld's PARALLEL notification mode does not keep the order of the events, the events are striped
+    // by the todo id per observer here, so the fan-out takes about as long as the slowest observer.
+    // there is no timeout on the whole fan-out, it would start counting while the stripe tasks still wait behind
+    // the earlier batches, and fail a batch which is delivered later anyway, and again after the next startup.
+    private CompletableFuture<Void> fireParallel(TodoCompletedBatch batch) {
+        var deliveries = new ArrayList<CompletableFuture<Void>>();
+        for (var observer : beanManager.resolveObserverMethods(batch)) {
+            if (!observer.isAsync()) {
+                continue;
+            }
+            var executor = observerExecutors.computeIfAbsent(observer,
+                    key -> new KeyStripedExecutor(executorService, STRIPES));
+            var stripes = batch.events().stream()
+                    .collect(Collectors.groupingBy(event -> executor.stripeOf(event.todoId()),
+                            LinkedHashMap::new, Collectors.toList()));
+            stripes.forEach((stripe, events) -> deliveries.add(executor.executeOnStripe(stripe,
+                    () -> notifyWithRetry(observer, new TodoCompletedBatch(events), events.size()))));
+        }
+        for (var observer : beanManager.resolveObserverMethods(batch.events().get(0))) {
+            if (!observer.isAsync()) {
+                continue;
+            }
+            var executor = observerExecutors.computeIfAbsent(observer,
+                    key -> new KeyStripedExecutor(executorService, STRIPES));
+            for (var event : batch.events()) {
+                deliveries.add(executor.execute(event.todoId(), () -> notifyWithRetry(observer, event, 1)));
+            }
+        }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new));
+    }
+
+    // retried in place, the next events of the stripe wait, so the order per todo is kept.
+    private <T> void notifyWithRetry(ObserverMethod<? super T> observer, T event, int size) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                observer.notify(event);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_DELIVERY_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "retrying a batch of {0} events, attempt: {1}",
+                        new Object[]{size, attempt + 1});
+                retried.add(size);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLIS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private record Pending(long sequence, TodoCompleted event, CompletableFuture<TodoCompleted> delivered) {
+    }
+
+    public enum DeliveryMode {
+        // the observers are notified one after another
+        SERIAL,
+        // the observers are notified in parallel, in order per todo id
+        PARALLEL
+    }
+
+    // unacknowledged is the number of the events in the journal which are not delivered yet
+    public record NotificationStats(int queued, long sent, long dropped, long failed, long retried, long batches,
+                                    long unacknowledged) {
     }
 }
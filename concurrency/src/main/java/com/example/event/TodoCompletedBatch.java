@@ -0,0 +1,10 @@
+package com.example.event;
+
+import java.util.List;
+
+// the TodoCompleted events delivered to the observers together, in the order they are sent.
+public record TodoCompletedBatch(List<TodoCompleted> events) {
+    public int size() {
+        return events.size();
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.event;
 
-import jakarta.enterprise.concurrent.Asynchronous;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.logging.Level;
@@ -10,8 +9,10 @@ import java.util.logging.Logger;
 public class TodoCompletedHandler {
     private static final Logger LOGGER = Logger.getLogger(TodoCompletedHandler.class.getName());
 
-    @Asynchronous
-    public void handleTodoCompletedEvent(TodoCompleted event) {
-        LOGGER.log(Level.INFO, "handling TodoCompleted event:{0}", event);
+    // runs on the thread of the observer, the events are handled in order and before the batch is acknowledged.
+    public void handleTodoCompletedEvents(TodoCompletedBatch batch) {
+        for (var event : batch.events()) {
+            LOGGER.log(Level.FINE, "handling TodoCompleted event:{0}", event);
+        }
     }
 }
@@ -0,0 +1,209 @@
+package com.example.event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only, memory-mapped journal of the TodoCompleted events.
+ * <p>
+ * Every event is written with a sequence number before it is dispatched, and acknowledged once it is delivered.
+ * The sequence number up to which all the events are acknowledged is kept in a separate checkpoint file, the
+ * events after it are returned by {@link #replay()} when the journal is opened again. When the journal is full,
+ * the acknowledged events are compacted away.
+ * <p>
+ * The writes to the mapped files survive a crash of the JVM, {@link #sync()} forces them to the disk.
+ * All the methods are synchronized, a journal can be shared by the threads.
+ */
+public class TodoCompletedJournal implements Closeable {
+    // sequence(8), todo id(8), flags(4), crc(4)
+    static final int RECORD_SIZE = 24;
+    private static final int CHECKSUM_OFFSET = 20;
+    private static final int HAS_TODO_ID = 1;
+
+    private final Path file;
+    private final Path checkpointFile;
+
+    private MappedByteBuffer records;
+    private final MappedByteBuffer checkpoint;
+    private int position;
+    private long nextSequence;
+    // the sequence numbers in the journal which are not acknowledged yet
+    private final NavigableSet<Long> unacked = new TreeSet<>();
+
+    public TodoCompletedJournal(Path directory, int capacity) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve("todo-completed.journal");
+        this.checkpointFile = directory.resolve("todo-completed.checkpoint");
+
+        this.checkpoint = map(checkpointFile, 24);
+        var checkpointed = readCheckpoint();
+        var ackedUpTo = checkpointed[0];
+
+        var size = Math.max((long) capacity * RECORD_SIZE, Files.exists(file) ? Files.size(file) : 0);
+        this.records = map(file, size);
+        var last = 0L;
+        while (position + RECORD_SIZE <= records.capacity()) {
+            var sequence = readSequence(records, position);
+            if (sequence <= last) {
+                break;
+            }
+            last = sequence;
+            if (sequence > ackedUpTo) {
+                unacked.add(sequence);
+            }
+            position += RECORD_SIZE;
+        }
+        // the compacted records are not in the file, the sequence numbers are not reused
+        this.nextSequence = Math.max(last + 1, checkpointed[1]);
+    }
+
+    /**
+     * @return the sequence number of the event.
+     */
+    public synchronized long append(TodoCompleted event) {
+        if (position + RECORD_SIZE > records.capacity()) {
+            compact();
+        }
+        var sequence = nextSequence++;
+        var record = new byte[RECORD_SIZE];
+        var buffer = ByteBuffer.wrap(record);
+        buffer.putLong(sequence)
+                .putLong(event.todoId() != null ? event.todoId() : 0L)
+                .putInt(event.todoId() != null ? HAS_TODO_ID : 0)
+                .putInt(checksum(record));
+        records.put(position, record);
+        position += RECORD_SIZE;
+        unacked.add(sequence);
+        return sequence;
+    }
+
+    public synchronized void ack(long sequence) {
+        unacked.remove(sequence);
+    }
+
+    // records the sequence number up to which all the events are acknowledged, the later ones are replayed after a crash.
+    public synchronized void checkpoint() {
+        var ackedUpTo = unacked.isEmpty() ? nextSequence - 1 : unacked.first() - 1;
+        var value = ByteBuffer.allocate(16).putLong(ackedUpTo).putLong(nextSequence).array();
+        var crc = new CRC32();
+        crc.update(value);
+        checkpoint.put(0, value).putLong(16, crc.getValue());
+    }
+
+    public synchronized void sync() {
+        checkpoint.force();
+        records.force();
+    }
+
+    /**
+     * @return the events which are not acknowledged yet, in the order they are appended.
+     */
+    public synchronized List<Entry> replay() {
+        var entries = new ArrayList<Entry>();
+        for (int offset = 0; offset < position; offset += RECORD_SIZE) {
+            var sequence = records.getLong(offset);
+            if (unacked.contains(sequence)) {
+                var todoId = (records.getInt(offset + 16) & HAS_TODO_ID) != 0 ? records.getLong(offset + 8) : null;
+                entries.add(new Entry(sequence, new TodoCompleted(todoId)));
+            }
+        }
+        return entries;
+    }
+
+    // the number of the events which are not acknowledged yet
+    public synchronized long pending() {
+        return unacked.size();
+    }
+
+    /**
+     * Rewrites the journal with the events which are not acknowledged, the file is doubled if they fill more than
+     * the half of it.
+     */
+    public synchronized void compact() {
+        var pending = pending();
+        checkpoint();
+        var capacity = records.capacity();
+        if (pending * RECORD_SIZE * 2 > capacity) {
+            capacity *= 2;
+        }
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.deleteIfExists(temp);
+            var compacted = map(temp, capacity);
+            var offset = 0;
+            var record = new byte[RECORD_SIZE];
+            for (int from = 0; from < position; from += RECORD_SIZE) {
+                var sequence = records.getLong(from);
+                if (unacked.contains(sequence)) {
+                    records.get(from, record);
+                    compacted.put(offset, record);
+                    offset += RECORD_SIZE;
+                }
+            }
+            compacted.force();
+            checkpoint.force();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = compacted;
+            position = offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the acknowledgements after a gap are not in the checkpoint, they are compacted away before closing.
+    @Override
+    public synchronized void close() {
+        compact();
+        sync();
+    }
+
+    // returns the acknowledged and the next sequence numbers.
+    private long[] readCheckpoint() {
+        var value = new byte[16];
+        checkpoint.get(0, value);
+        var crc = new CRC32();
+        crc.update(value);
+        // an empty or torn checkpoint, everything in the journal is replayed
+        if (crc.getValue() != checkpoint.getLong(16)) {
+            return new long[]{0, 1};
+        }
+        return new long[]{checkpoint.getLong(0), checkpoint.getLong(8)};
+    }
+
+    // returns 0 at the end of the journal, or at a record which is not completely written.
+    private static long readSequence(MappedByteBuffer records, int offset) {
+        var record = new byte[RECORD_SIZE];
+        records.get(offset, record);
+        var sequence = records.getLong(offset);
+        return sequence > 0 && checksum(record) == records.getInt(offset + CHECKSUM_OFFSET) ? sequence : 0;
+    }
+
+    private static int checksum(byte[] record) {
+        var crc = new CRC32();
+        crc.update(record, 0, CHECKSUM_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (var channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    public record Entry(long sequence, TodoCompleted event) {
+    }
+}
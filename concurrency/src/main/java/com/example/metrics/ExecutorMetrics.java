@@ -0,0 +1,95 @@
+package com.example.metrics;
+
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Tracks the tasks submitted to a managed executor, which does not expose the state of its pool.
+ * <p>
+ * The queued tasks are the submitted ones which are not started yet, a task cancelled(or failed) before it is
+ * started leaves the queue too. The wait time is from the submission to the start of a task.
+ */
+public class ExecutorMetrics {
+    private final String name;
+    private final int maxAsync;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final ConcurrentHistogram waitNanos = MetricsRegistry.newHistogram();
+
+    ExecutorMetrics(String name, int maxAsync) {
+        this.name = name;
+        this.maxAsync = maxAsync;
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(ManagedExecutorService executor, Supplier<T> task) {
+        var submittedAt = System.nanoTime();
+        // claimed by the start of the task or by the completion of the future before it, whichever comes first
+        var claimed = new AtomicBoolean();
+        submitted.increment();
+        try {
+            var future = executor.supplyAsync(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    // the future is already completed, the result is discarded
+                    return null;
+                }
+                waitNanos.recordValue(Math.min(System.nanoTime() - submittedAt, MetricsRegistry.MAX_TRACKABLE_NANOS));
+                started.increment();
+                active.incrementAndGet();
+                try {
+                    return task.get();
+                } finally {
+                    active.decrementAndGet();
+                    completed.increment();
+                }
+            });
+            future.whenComplete((result, error) -> {
+                if (claimed.compareAndSet(false, true)) {
+                    abandoned.increment();
+                }
+            });
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxAsync() {
+        return maxAsync;
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public long getQueued() {
+        return Math.max(0, submitted.sum() - started.sum() - rejected.sum() - abandoned.sum());
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public ConcurrentHistogram getWaitNanos() {
+        return waitNanos;
+    }
+}
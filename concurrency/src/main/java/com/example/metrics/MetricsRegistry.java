@@ -0,0 +1,68 @@
+package com.example.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The method timers and the executor metrics of the application, the latencies are kept in HDR histograms.
+ */
+@ApplicationScoped
+public class MetricsRegistry {
+    // the latencies over it are recorded as it
+    static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, ExecutorMetrics> executors = new ConcurrentHashMap<>();
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    public ExecutorMetrics executor(String name, int maxAsync) {
+        return executors.computeIfAbsent(name, key -> new ExecutorMetrics(key, maxAsync));
+    }
+
+    public Map<String, Timer> getTimers() {
+        return Map.copyOf(timers);
+    }
+
+    public Map<String, ExecutorMetrics> getExecutors() {
+        return Map.copyOf(executors);
+    }
+
+    static ConcurrentHistogram newHistogram() {
+        return new ConcurrentHistogram(MAX_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    public static class Timer {
+        private final ConcurrentHistogram histogram = newHistogram();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        public void record(long nanos, boolean failed) {
+            histogram.recordValue(Math.min(nanos, MAX_TRACKABLE_NANOS));
+            totalNanos.add(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        public ConcurrentHistogram getHistogram() {
+            return histogram;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.metrics;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records the latency of the annotated methods in the {@link MetricsRegistry}.
+ * <p>
+ * For the methods returning a {@link java.util.concurrent.CompletionStage}, e.g. the {@code @Asynchronous} ones,
+ * the time until the stage is completed is recorded, the time waiting for a thread included.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Timed {
+
+    // the timer name, `<class>.<method>` by default
+    @Nonbinding
+    String value() default "";
+}
@@ -0,0 +1,49 @@
+package com.example.metrics;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.util.concurrent.CompletionStage;
+
+// it runs before the @Asynchronous interceptor of Jakarta Concurrency, so the time in the executor queue is counted.
+@Timed
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE)
+public class TimedInterceptor {
+
+    @Inject
+    MetricsRegistry registry;
+
+    @AroundInvoke
+    public Object time(InvocationContext context) throws Exception {
+        var method = context.getMethod();
+        var config = method.getAnnotation(Timed.class);
+        if (config == null) {
+            config = method.getDeclaringClass().getAnnotation(Timed.class);
+        }
+        var name = config == null || config.value().isEmpty()
+                ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                : config.value();
+        var timer = registry.timer(name);
+
+        var started = System.nanoTime();
+        var async = false;
+        var failed = true;
+        try {
+            var result = context.proceed();
+            if (result instanceof CompletionStage<?> stage) {
+                async = true;
+                stage.whenComplete((value, error) -> timer.record(System.nanoTime() - started, error != null));
+            }
+            failed = false;
+            return result;
+        } finally {
+            if (!async) {
+                timer.record(System.nanoTime() - started, failed);
+            }
+        }
+    }
+}
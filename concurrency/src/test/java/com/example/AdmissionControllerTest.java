@@ -0,0 +1,45 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void testTimeoutsAreNotLatencySamples() {
+        var controller = new AdmissionController();
+        controller.admit().completed();
+        var p99 = controller.getStats().p99Millis();
+
+        for (int i = 0; i < 10; i++) {
+            controller.admit().timedOut();
+        }
+
+        var stats = controller.getStats();
+        assertThat(stats.timedOut()).isEqualTo(10);
+        assertThat(stats.p99Millis()).isEqualTo(p99);
+        assertThat(stats.inFlight()).isZero();
+        assertThat(controller.timeoutMillis()).isEqualTo(AdmissionController.MIN_TIMEOUT_MILLIS);
+    }
+
+    @Test
+    public void testRejectWhenInFlightExceedsWhatCompletesWithinTheTargetLatency() {
+        var controller = new AdmissionController();
+        // nothing has completed yet, only the probing requests are let through
+        var tickets = new ArrayList<AdmissionController.Ticket>();
+        for (int i = 0; i < AdmissionController.MIN_IN_FLIGHT; i++) {
+            tickets.add(controller.admit());
+        }
+        assertThat(tickets).doesNotContainNull();
+        assertThat(controller.admit()).isNull();
+        assertThat(controller.getStats().rejected()).isEqualTo(1);
+
+        // a finished request frees a slot
+        tickets.remove(0).completed();
+        assertThat(controller.admit()).isNotNull();
+        assertThat(controller.getStats().inFlight()).isEqualTo(AdmissionController.MIN_IN_FLIGHT);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.bulkhead;
+
+import jakarta.interceptor.InvocationContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BulkheadInterceptorTest {
+
+    private BulkheadInterceptor interceptor;
+
+    @BeforeEach
+    public void before() {
+        interceptor = new BulkheadInterceptor();
+        interceptor.registry = new BulkheadRegistry();
+    }
+
+    @Test
+    public void testDropAsyncCallReturnsFailedFuture() throws Exception {
+        var method = Calls.class.getMethod("async");
+        var running = new CompletableFuture<String>();
+
+        var first = interceptor.limit(context(method, () -> running));
+        assertThat(first).isSameAs(running);
+
+        var dropped = interceptor.limit(context(method, () -> {
+            throw new AssertionError("the call must be dropped");
+        }));
+        assertThat(dropped).isInstanceOf(CompletableFuture.class);
+        assertThatThrownBy(((CompletableFuture<?>) dropped)::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(BulkheadRejectedException.class);
+
+        // the slot is released when the stage of the first call is completed
+        running.complete("done");
+        var next = CompletableFuture.completedFuture("next");
+        assertThat(interceptor.limit(context(method, () -> next))).isSameAs(next);
+    }
+
+    @Test
+    public void testDropSyncCall() throws Exception {
+        var method = Calls.class.getMethod("async");
+        var running = new CompletableFuture<String>();
+        interceptor.limit(context(method, () -> running));
+
+        var sync = Calls.class.getMethod("sync");
+        assertThat(interceptor.limit(context(sync, () -> "value"))).isNull();
+
+        var primitive = Calls.class.getMethod("count");
+        assertThatThrownBy(() -> interceptor.limit(context(primitive, () -> 1)))
+                .isInstanceOf(BulkheadRejectedException.class);
+        running.complete("done");
+    }
+
+    // all the methods share the same bulkhead with a single slot
+    static class Calls {
+        @Bulkhead(value = "drop", maxConcurrent = 1, queueSize = 0, rejection = Bulkhead.RejectionPolicy.DROP)
+        public CompletionStage<String> async() {
+            return null;
+        }
+
+        @Bulkhead(value = "drop", maxConcurrent = 1, queueSize = 0, rejection = Bulkhead.RejectionPolicy.DROP)
+        public String sync() {
+            return null;
+        }
+
+        @Bulkhead(value = "drop", maxConcurrent = 1, queueSize = 0, rejection = Bulkhead.RejectionPolicy.DROP)
+        public int count() {
+            return 0;
+        }
+    }
+
+    private static InvocationContext context(Method method, Callable<Object> proceed) {
+        var contextData = new HashMap<String, Object>();
+        return new InvocationContext() {
+            @Override
+            public Object getTarget() {
+                return null;
+            }
+
+            @Override
+            public Object getTimer() {
+                return null;
+            }
+
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+
+            @Override
+            public Constructor<?> getConstructor() {
+                return null;
+            }
+
+            @Override
+            public Object[] getParameters() {
+                return new Object[0];
+            }
+
+            @Override
+            public void setParameters(Object[] params) {
+            }
+
+            @Override
+            public Map<String, Object> getContextData() {
+                return contextData;
+            }
+
+            public Set<Annotation> getInterceptorBindings() {
+                return Set.of();
+            }
+
+            @Override
+            public Object proceed() throws Exception {
+                return proceed.call();
+            }
+        };
+    }
+}
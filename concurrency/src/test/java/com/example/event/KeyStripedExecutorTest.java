@@ -0,0 +1,88 @@
+package com.example.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyStripedExecutorTest {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    public void after() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testTasksOfTheSameKeyRunInOrder() throws Exception {
+        var executor = new KeyStripedExecutor(executorService, 4);
+        Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+        var tasks = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < 1000; i++) {
+            var key = (long) (i % 10);
+            var sequence = i;
+            tasks.add(executor.execute(key, () -> {
+                if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                    Thread.yield();
+                }
+                seen.computeIfAbsent(key, k -> new ArrayList<>()).add(sequence);
+            }));
+        }
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(seen).hasSize(10);
+        seen.values().forEach(sequences -> assertThat(sequences).hasSize(100).isSorted());
+    }
+
+    @Test
+    public void testStripesRunInParallel() throws Exception {
+        var executor = new KeyStripedExecutor(executorService, 4);
+        var started = new CountDownLatch(2);
+        var release = new CountDownLatch(1);
+        // the keys on two stripes wait for each other, it would never end if they ran serially
+        var otherKey = LongStream.range(0, 100).boxed()
+                .filter(key -> executor.stripeOf(key) != executor.stripeOf(0L))
+                .findFirst()
+                .orElseThrow();
+        Runnable task = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        var first = executor.execute(0L, task);
+        var second = executor.execute(otherKey, task);
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testFailedTaskDoesNotBlockTheStripe() throws Exception {
+        var executor = new KeyStripedExecutor(executorService, 1);
+        var failed = executor.execute("key", () -> {
+            throw new IllegalStateException("failed");
+        });
+        var next = executor.execute("key", () -> {
+        });
+
+        next.get(5, TimeUnit.SECONDS);
+        assertThat(failed).isCompletedExceptionally();
+    }
+}
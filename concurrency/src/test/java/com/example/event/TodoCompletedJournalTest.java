@@ -0,0 +1,89 @@
+package com.example.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TodoCompletedJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReplayUnacknowledgedEvents() throws Exception {
+        try (var journal = new TodoCompletedJournal(directory, 16)) {
+            LongStream.rangeClosed(1, 5).forEach(id -> journal.append(new TodoCompleted(id)));
+            journal.ack(1);
+            journal.ack(2);
+            journal.ack(4);
+            journal.checkpoint();
+        }
+
+        try (var journal = new TodoCompletedJournal(directory, 16)) {
+            assertThat(journal.replay())
+                    .extracting(TodoCompletedJournal.Entry::event)
+                    .containsExactly(new TodoCompleted(3L), new TodoCompleted(5L));
+            assertThat(journal.append(new TodoCompleted(6L))).isEqualTo(6);
+        }
+    }
+
+    @Test
+    public void testNullTodoId() throws Exception {
+        try (var journal = new TodoCompletedJournal(directory, 16)) {
+            journal.append(new TodoCompleted(null));
+        }
+        try (var journal = new TodoCompletedJournal(directory, 16)) {
+            assertThat(journal.replay())
+                    .extracting(TodoCompletedJournal.Entry::event)
+                    .containsExactly(new TodoCompleted(null));
+        }
+    }
+
+    @Test
+    public void testCompactWhenFull() throws Exception {
+        try (var journal = new TodoCompletedJournal(directory, 4)) {
+            for (long id = 1; id <= 100; id++) {
+                var sequence = journal.append(new TodoCompleted(id));
+                if (id != 50) {
+                    journal.ack(sequence);
+                }
+            }
+            assertThat(journal.pending()).isEqualTo(1);
+            assertThat(journal.replay())
+                    .extracting(TodoCompletedJournal.Entry::sequence)
+                    .containsExactly(50L);
+        }
+
+        try (var journal = new TodoCompletedJournal(directory, 4)) {
+            assertThat(journal.replay())
+                    .extracting(TodoCompletedJournal.Entry::event)
+                    .containsExactly(new TodoCompleted(50L));
+            assertThat(journal.append(new TodoCompleted(101L))).isEqualTo(101);
+        }
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws Exception {
+        try (var journal = new TodoCompletedJournal(directory, 16)) {
+            journal.append(new TodoCompleted(1L));
+            journal.append(new TodoCompleted(2L));
+        }
+        // corrupt the todo id of the second record
+        try (var file = new RandomAccessFile(directory.resolve("todo-completed.journal").toFile(), "rw")) {
+            file.seek(TodoCompletedJournal.RECORD_SIZE + 8);
+            file.writeLong(42L);
+        }
+
+        try (var journal = new TodoCompletedJournal(directory, 16)) {
+            assertThat(journal.replay())
+                    .extracting(TodoCompletedJournal.Entry::event)
+                    .containsExactly(new TodoCompleted(1L));
+            assertThat(journal.append(new TodoCompleted(3L))).isEqualTo(3);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.it;
+
+import com.example.AdmissionController;
+import com.example.AsyncResource;
+import com.example.RestConfig;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.RunAsClient;
+import org.jboss.arquillian.junit5.ArquillianExtension;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.shrinkwrap.resolver.api.maven.Maven;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.CompletionStage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(ArquillianExtension.class)
+public class AsyncResourceTest {
+
+    private final static Logger LOGGER = Logger.getLogger(AsyncResourceTest.class.getName());
+
+    @Deployment(testable = false)
+    public static WebArchive createDeployment() {
+        File[] extraJars = Maven
+                .resolver()
+                .loadPomFromFile("pom.xml")
+                .importCompileAndRuntimeDependencies()
+                .resolve("org.assertj:assertj-core")
+                .withTransitivity()
+                .asFile();
+        var war = ShrinkWrap.create(WebArchive.class)
+                .addAsLibraries(extraJars)
+                .addClasses(
+                        AsyncResource.class,
+                        AdmissionController.class,
+                        RestConfig.class
+                )
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+        LOGGER.log(Level.INFO, "war deployment: {0}", new Object[]{war.toString(true)});
+        return war;
+    }
+
+    @ArquillianResource
+    private URL baseUrl;
+
+    Client client;
+
+    @BeforeEach
+    public void before() throws Exception {
+        LOGGER.log(Level.INFO, "baseURL: {0}", new Object[]{baseUrl.toExternalForm()});
+        client = ClientBuilder.newClient();
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        client.close();
+    }
+
+    @Test
+    @RunAsClient
+    public void testAsyncResource() throws Exception {
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/async"));
+        CompletionStage<Response> responseCompletionStage = target
+                .request()
+                .rx().get();
+
+        responseCompletionStage
+                .thenAccept(
+                        r -> {
+                            LOGGER.log(Level.INFO, "Get /async response status: {0}", r.getStatus());
+                            assertEquals(200, r.getStatus());
+                            String jsonString = r.readEntity(String.class);
+                            LOGGER.log(Level.INFO, "Get /async result string: {0}", jsonString);
+                            assertEquals("asynchronous resource", jsonString);
+                        }
+                )
+                .toCompletableFuture()
+                .join();
+
+        Response stats = client.target(URI.create(baseUrl.toExternalForm() + "api/async/stats"))
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        assertEquals(200, stats.getStatus());
+        String statsString = stats.readEntity(String.class);
+        LOGGER.log(Level.INFO, "Get /async/stats result string: {0}", statsString);
+        assertThat(statsString).contains("\"admitted\":1");
+    }
+
+}
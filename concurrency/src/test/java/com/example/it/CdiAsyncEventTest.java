@@ -1,5 +1,6 @@
 package com.example.it;
 
+import com.example.bulkhead.Bulkhead;
 import com.example.event.NotificationSender;
 import com.example.event.TodoCompleted;
 import jakarta.inject.Inject;
@@ -14,17 +15,24 @@ import org.jboss.shrinkwrap.api.spec.WebArchive;
 import org.jboss.shrinkwrap.resolver.api.maven.Maven;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.io.File;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.IntStream;
+import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 @ExtendWith(ArquillianExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class CdiAsyncEventTest {
 
     private final static Logger LOGGER = Logger.getLogger(CdiAsyncEventTest.class.getName());
@@ -44,6 +52,9 @@ public class CdiAsyncEventTest {
         var war = ShrinkWrap.create(WebArchive.class)
                 .addAsLibraries(extraJars)
                 .addPackage(TodoCompleted.class.getPackage())
+                .addPackage(Bulkhead.class.getPackage())
+                .addClasses(RecordingTodoCompletedHandler.class, FlakyTodoCompletedObserver.class,
+                        SingleTodoCompletedObserver.class)
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
         LOGGER.log(Level.INFO, "war deployment: {0}", new Object[]{war.toString(true)});
         return war;
@@ -52,6 +63,15 @@ public class CdiAsyncEventTest {
     @Inject
     NotificationSender sender;
 
+    @Inject
+    RecordingTodoCompletedHandler handler;
+
+    @Inject
+    FlakyTodoCompletedObserver flakyObserver;
+
+    @Inject
+    SingleTodoCompletedObserver singleObserver;
+
     @BeforeEach
     public void before() throws Exception {
     }
@@ -61,6 +81,7 @@ public class CdiAsyncEventTest {
     }
 
     @Test
+    @Order(1)
     public void testCdiAsyncEvent() throws Exception {
         LongStream.range(0, 10)
                 .forEachOrdered(idx -> sender.send(idx));
@@ -69,4 +90,94 @@ public class CdiAsyncEventTest {
                 .atMost(Duration.ofMillis(1000))
                 .untilAsserted(() -> Assertions.assertThat(sender.getSentCounter().get()).isEqualTo(10L));
     }
+
+    @Test
+    @Order(2)
+    public void testEventsAreBatched() throws Exception {
+        var sent = sender.getSentCounter().get();
+        var batches = sender.getStats().batches();
+        var delivered = LongStream.range(0, 250)
+                .mapToObj(idx -> sender.send(idx).toCompletableFuture())
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(delivered).get(5, TimeUnit.SECONDS);
+        var stats = sender.getStats();
+        LOGGER.log(Level.INFO, "notification stats: {0}", new Object[]{stats});
+        Assertions.assertThat(sender.getSentCounter().get() - sent).isEqualTo(250L);
+        Assertions.assertThat(stats.batches() - batches).isLessThan(250L);
+        Assertions.assertThat(stats.dropped()).isZero();
+    }
+
+    @Test
+    @Order(3)
+    public void testParallelDelivery() throws Exception {
+        sender.setDeliveryMode(NotificationSender.DeliveryMode.PARALLEL);
+        handler.clear();
+        try {
+            var sent = sender.getSentCounter().get();
+            var delivered = LongStream.range(0, 100)
+                    .mapToObj(idx -> sender.send(idx % 10).toCompletableFuture())
+                    .toList();
+
+            CompletableFuture.allOf(delivered.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+            Assertions.assertThat(sender.getSentCounter().get() - sent).isEqualTo(100L);
+
+            // the handler got the events of every todo in the order they were sent, the same instances are compared
+            // as the events of a todo are equal.
+            var sentEvents = delivered.stream().map(CompletableFuture::join)
+                    .collect(Collectors.groupingBy(TodoCompleted::todoId));
+            sentEvents.forEach((todoId, events) -> Assertions.assertThat(handler.getHandled(todoId))
+                    .usingElementComparator((a, b) -> a == b ? 0 : 1)
+                    .containsExactlyElementsOf(events));
+        } finally {
+            sender.setDeliveryMode(NotificationSender.DeliveryMode.SERIAL);
+        }
+    }
+
+    @Test
+    @Order(4)
+    public void testFailedDeliveryIsRetried() throws Exception {
+        for (var mode : NotificationSender.DeliveryMode.values()) {
+            sender.setDeliveryMode(mode);
+            try {
+                var retried = sender.getStats().retried();
+                flakyObserver.failNext(2);
+
+                var delivered = sender.send(FlakyTodoCompletedObserver.FLAKY_TODO_ID).toCompletableFuture();
+
+                Assertions.assertThat(delivered.get(5, TimeUnit.SECONDS).todoId())
+                        .isEqualTo(FlakyTodoCompletedObserver.FLAKY_TODO_ID);
+                var stats = sender.getStats();
+                LOGGER.log(Level.INFO, "{0} notification stats: {1}", new Object[]{mode, stats});
+                Assertions.assertThat(stats.retried() - retried).isEqualTo(2L);
+            } finally {
+                sender.setDeliveryMode(NotificationSender.DeliveryMode.SERIAL);
+            }
+        }
+    }
+
+    @Test
+    @Order(5)
+    public void testSingleEventObserversGetEveryEvent() throws Exception {
+        for (var mode : NotificationSender.DeliveryMode.values()) {
+            sender.setDeliveryMode(mode);
+            singleObserver.clear();
+            try {
+                var delivered = LongStream.range(0, 50)
+                        .mapToObj(idx -> sender.send(idx % 5).toCompletableFuture())
+                        .toList();
+
+                CompletableFuture.allOf(delivered.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+                // the events are delivered to the observers before the sender is told
+                var sentEvents = delivered.stream().map(CompletableFuture::join)
+                        .collect(Collectors.groupingBy(TodoCompleted::todoId));
+                sentEvents.forEach((todoId, events) -> Assertions.assertThat(singleObserver.getObserved(todoId))
+                        .as("%s delivery of todo %s", mode, todoId)
+                        .usingElementComparator((a, b) -> a == b ? 0 : 1)
+                        .containsExactlyElementsOf(events));
+            } finally {
+                sender.setDeliveryMode(NotificationSender.DeliveryMode.SERIAL);
+            }
+        }
+    }
 }
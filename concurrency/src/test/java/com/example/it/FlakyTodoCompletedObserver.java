@@ -0,0 +1,26 @@
+package com.example.it;
+
+import com.example.event.TodoCompletedBatch;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// fails the batches holding the flaky todo until the planned failures are used up.
+@ApplicationScoped
+public class FlakyTodoCompletedObserver {
+    public static final Long FLAKY_TODO_ID = -1L;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public void onTodoCompletedEvents(@ObservesAsync TodoCompletedBatch batch) {
+        var flaky = batch.events().stream().anyMatch(event -> FLAKY_TODO_ID.equals(event.todoId()));
+        if (flaky && failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            throw new IllegalStateException("planned failure");
+        }
+    }
+
+    public void failNext(int times) {
+        failures.set(times);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.it;
+
+import com.example.event.TodoCompleted;
+import com.example.event.TodoCompletedBatch;
+import com.example.event.TodoCompletedHandler;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Specializes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// records the events in the order they reach the handler, per todo.
+@Specializes
+@ApplicationScoped
+public class RecordingTodoCompletedHandler extends TodoCompletedHandler {
+    private final Map<Long, List<TodoCompleted>> handled = new ConcurrentHashMap<>();
+
+    @Override
+    public void handleTodoCompletedEvents(TodoCompletedBatch batch) {
+        super.handleTodoCompletedEvents(batch);
+        for (var event : batch.events()) {
+            var events = handled.computeIfAbsent(event.todoId(), key -> new ArrayList<>());
+            synchronized (events) {
+                events.add(event);
+            }
+        }
+    }
+
+    public List<TodoCompleted> getHandled(Long todoId) {
+        var events = handled.getOrDefault(todoId, List.of());
+        synchronized (events) {
+            return List.copyOf(events);
+        }
+    }
+
+    public void clear() {
+        handled.clear();
+    }
+}
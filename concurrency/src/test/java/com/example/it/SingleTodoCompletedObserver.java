@@ -0,0 +1,34 @@
+package com.example.it;
+
+import com.example.event.TodoCompleted;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// observes the single events instead of the batches, records them in the order they arrive, per todo.
+@ApplicationScoped
+public class SingleTodoCompletedObserver {
+    private final Map<Long, List<TodoCompleted>> observed = new ConcurrentHashMap<>();
+
+    public void onTodoCompleted(@ObservesAsync TodoCompleted event) {
+        var events = observed.computeIfAbsent(event.todoId(), key -> new ArrayList<>());
+        synchronized (events) {
+            events.add(event);
+        }
+    }
+
+    public List<TodoCompleted> getObserved(Long todoId) {
+        var events = observed.getOrDefault(todoId, List.of());
+        synchronized (events) {
+            return List.copyOf(events);
+        }
+    }
+
+    public void clear() {
+        observed.clear();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.it;
+
+import com.example.*;
+import com.example.bulkhead.Bulkhead;
+import com.example.metrics.Timed;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.RunAsClient;
+import org.jboss.arquillian.junit5.ArquillianExtension;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.shrinkwrap.resolver.api.maven.Maven;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the throughput of the todos endpoints on the default executor and the I/O executor
+ * as the number of concurrent clients rises.
+ * <p>
+ * The bulkhead interceptor is not deployed, the requests are not turned away with a 503, the executors are compared.
+ * The throughput counts the successful requests only.
+ * <p>
+ * It takes a while, run it with {@code -Dcom.example.load=true}, the concurrency levels can be set with
+ * {@code -Dcom.example.load.levels=10,100,1000,10000}.
+ */
+@ExtendWith(ArquillianExtension.class)
+@EnabledIfSystemProperty(named = "com.example.load", matches = "true")
+public class TodoLoadTest {
+
+    private final static Logger LOGGER = Logger.getLogger(TodoLoadTest.class.getName());
+
+    private static final int MIN_REQUESTS = 200;
+
+    @Deployment(testable = false)
+    public static WebArchive createDeployment() {
+        File[] extraJars = Maven
+                .resolver()
+                .loadPomFromFile("pom.xml")
+                .importCompileAndRuntimeDependencies()
+                .resolve("org.hdrhistogram:HdrHistogram")
+                .withTransitivity()
+                .asFile();
+        var war = ShrinkWrap.create(WebArchive.class)
+                .addAsLibraries(extraJars)
+                .addClasses(
+                        TodoResources.class,
+                        TodoResource.class,
+                        Todo.class,
+                        TimeOrderedUuid.class, TimeOrderedUuidSequence.class,
+                        TodoDashboard.class,
+                        TodoService.class,
+                        EjbTodoService.class,
+                        TodoSamples.class,
+                        RestConfig.class
+                )
+                // only the annotation, without BulkheadInterceptor the @Bulkhead bindings are not enforced
+                .addClass(Bulkhead.class)
+                .addPackage(Timed.class.getPackage())
+                .addAsResource("test-persistence.xml", "META-INF/persistence.xml")
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+        LOGGER.log(Level.INFO, "war deployment: {0}", new Object[]{war.toString(true)});
+        return war;
+    }
+
+    @ArquillianResource
+    private URL baseUrl;
+
+    @Test
+    @RunAsClient
+    public void testThroughput() throws Exception {
+        var levels = Arrays.stream(System.getProperty("com.example.load.levels", "10,100,1000,10000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        var executor = Executors.newCachedThreadPool();
+        var httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            for (var endpoint : new String[]{"getAllTodosAsync", "getAllTodosIoAsync"}) {
+                var uri = URI.create(baseUrl.toExternalForm() + "api/todos/" + endpoint);
+                // warm up
+                assertEquals(0, run(httpClient, uri, 10, MIN_REQUESTS).failed);
+                for (var level : levels) {
+                    var result = run(httpClient, uri, level, Math.max(level * 2, MIN_REQUESTS));
+                    LOGGER.log(Level.INFO, "{0} with {1} concurrent clients: {2} requests in {3} ms, {4} successful req/s, {5} failed",
+                            new Object[]{endpoint, level, result.requests, result.millis,
+                                    String.format("%.1f", result.throughput()), result.failed});
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result run(HttpClient httpClient, URI uri, int concurrency, int requests) throws InterruptedException {
+        var inFlight = new Semaphore(concurrency);
+        var failed = new LongAdder();
+        var request = HttpRequest.newBuilder(uri)
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        var futures = new CompletableFuture<?>[requests];
+        var started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            futures[i] = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (error != null || response.statusCode() != 200) {
+                            failed.increment();
+                        }
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(e -> null).join();
+        return new Result(requests, (System.nanoTime() - started) / 1_000_000, failed.sum());
+    }
+
+    record Result(int requests, long millis, long failed) {
+        // the failed requests are often the quickest ones, they are not counted
+        double throughput() {
+            return millis > 0 ? (requests - failed) * 1000.0 / millis : 0;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.it;
 
 import com.example.*;
+import com.example.bulkhead.Bulkhead;
+import com.example.metrics.Timed;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Entity;
@@ -28,6 +30,7 @@ import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(ArquillianExtension.class)
 public class TodoResourceTest {
@@ -40,7 +43,7 @@ public class TodoResourceTest {
                 .resolver()
                 .loadPomFromFile("pom.xml")
                 .importCompileAndRuntimeDependencies()
-                .resolve("org.assertj:assertj-core")
+                .resolve("org.assertj:assertj-core", "org.hdrhistogram:HdrHistogram")
                 .withTransitivity()
                 .asFile();
         var war = ShrinkWrap.create(WebArchive.class)
@@ -49,11 +52,17 @@ public class TodoResourceTest {
                         TodoResources.class,
                         TodoResource.class,
                         Todo.class,
+                        TimeOrderedUuid.class, TimeOrderedUuidSequence.class,
+                        TodoDashboard.class,
                         TodoService.class,
                         EjbTodoService.class,
                         TodoSamples.class,
+                        BulkheadResource.class,
+                        MetricsResource.class,
                         RestConfig.class
                 )
+                .addPackage(Bulkhead.class.getPackage())
+                .addPackage(Timed.class.getPackage())
                 .addAsResource("test-persistence.xml", "META-INF/persistence.xml")
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
         LOGGER.log(Level.INFO, "war deployment: {0}", new Object[]{war.toString(true)});
@@ -145,6 +154,29 @@ public class TodoResourceTest {
 
     }
 
+    @Test
+    @RunAsClient
+    public void testGetAllTodosIoAsync() throws Exception {
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/todos/getAllTodosIoAsync"));
+        CompletionStage<Response> responseCompletionStage = target
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .rx().get();
+
+        responseCompletionStage
+                .thenAccept(
+                        r -> {
+                            LOGGER.log(Level.INFO, "Get /todos/getAllTodosIoAsync response status: {0}", r.getStatus());
+                            assertEquals(200, r.getStatus());
+                            String jsonString = r.readEntity(String.class);
+                            LOGGER.log(Level.INFO, "Get todos result string: {0}", jsonString);
+                        }
+                )
+                .toCompletableFuture()
+                .join();
+
+    }
+
     @Test
     @RunAsClient
     public void testGetAllTodosAndAsync() throws Exception {
@@ -191,6 +223,73 @@ public class TodoResourceTest {
 
     }
 
+    @Test
+    @RunAsClient
+    public void testGetDashboard() throws Exception {
+        var r = client.target(URI.create(baseUrl.toExternalForm() + "api/todos/dashboard"))
+                .queryParam("q", "jpa")
+                .queryParam("limit", 2)
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        LOGGER.log(Level.INFO, "Get /todos/dashboard response status: {0}", r.getStatus());
+        assertEquals(200, r.getStatus());
+        String jsonString = r.readEntity(String.class);
+        LOGGER.log(Level.INFO, "Get /todos/dashboard result string: {0}", jsonString);
+        assertTrue(jsonString.contains("\"countsByStatus\""));
+        assertTrue(jsonString.contains("\"recent\""));
+        assertTrue(jsonString.contains("What's new in JPA 3.1?"));
+    }
+
+    @Test
+    @RunAsClient
+    public void testGetBulkheads() throws Exception {
+        client.target(URI.create(baseUrl.toExternalForm() + "api/todos/getAllTodosAsync"))
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .get()
+                .close();
+
+        var r = client.target(URI.create(baseUrl.toExternalForm() + "api/bulkheads"))
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .get();
+        LOGGER.log(Level.INFO, "Get /bulkheads response status: {0}", r.getStatus());
+        assertEquals(200, r.getStatus());
+        String jsonString = r.readEntity(String.class);
+        LOGGER.log(Level.INFO, "Get /bulkheads result string: {0}", jsonString);
+        assertTrue(jsonString.contains("\"name\":\"todos\""));
+    }
+
+    @Test
+    @RunAsClient
+    public void testGetMetrics() throws Exception {
+        client.target(URI.create(baseUrl.toExternalForm() + "api/todos/getAllTodosAsync"))
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .get()
+                .close();
+
+        var r = client.target(URI.create(baseUrl.toExternalForm() + "api/metrics"))
+                .request()
+                .get();
+        LOGGER.log(Level.INFO, "Get /metrics response status: {0}", r.getStatus());
+        assertEquals(200, r.getStatus());
+        String metrics = r.readEntity(String.class);
+        LOGGER.log(Level.INFO, "Get /metrics result string: {0}", metrics);
+        assertTrue(metrics.contains("method_duration_seconds_count{method=\"TodoService.getAllTodosAsync\"}"));
+        assertTrue(metrics.contains("executor_max_async{executor=\"MyExecutor\"} 5"));
+        // every family is contiguous after its TYPE line
+        var family = "";
+        for (var line : metrics.split("\n")) {
+            if (line.startsWith("# TYPE ")) {
+                family = line.split(" ")[2];
+            } else if (!line.isBlank()) {
+                assertTrue(line.startsWith(family), "sample out of its family " + family + ": " + line);
+            }
+        }
+    }
+
     @Test
     @RunAsClient
     public void testCreateTodo() throws Exception {
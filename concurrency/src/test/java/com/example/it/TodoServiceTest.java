@@ -2,10 +2,17 @@ package com.example.it;
 
 import com.example.EjbTodoService;
 import com.example.Todo;
+import com.example.TimeOrderedUuid;
+import com.example.TimeOrderedUuidSequence;
 import com.example.TodoSamples;
 import com.example.TodoService;
+import com.example.bulkhead.Bulkhead;
+import com.example.metrics.Timed;
 import jakarta.ejb.EJB;
 import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.UserTransaction;
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit5.ArquillianExtension;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
@@ -15,13 +22,19 @@ import org.jboss.shrinkwrap.resolver.api.maven.Maven;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import javax.naming.InitialContext;
+import javax.sql.DataSource;
 import java.io.File;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(ArquillianExtension.class)
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -35,17 +48,20 @@ public class TodoServiceTest {
                 .resolver()
                 .loadPomFromFile("pom.xml")
                 .importCompileAndRuntimeDependencies()
-                .resolve("org.assertj:assertj-core")
+                .resolve("org.assertj:assertj-core", "org.hdrhistogram:HdrHistogram")
                 .withTransitivity()
                 .asFile();
         var war = ShrinkWrap.create(WebArchive.class)
                 .addAsLibraries(extraJars)
                 .addClasses(
                         Todo.class,
+                        TimeOrderedUuid.class, TimeOrderedUuidSequence.class,
                         TodoService.class,
                         EjbTodoService.class,
                         TodoSamples.class
                 )
+                .addPackage(Bulkhead.class.getPackage())
+                .addPackage(Timed.class.getPackage())
                 .addAsResource("test-persistence.xml", "META-INF/persistence.xml")
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
         LOGGER.log(Level.INFO, "war deployment: {0}", new Object[]{war.toString(true)});
@@ -58,6 +74,12 @@ public class TodoServiceTest {
     @EJB
     EjbTodoService ejbTodoService;
 
+    @PersistenceContext
+    EntityManager em;
+
+    @Inject
+    UserTransaction ux;
+
     @BeforeEach
     public void before() throws Exception {
     }
@@ -126,4 +148,52 @@ public class TodoServiceTest {
                 .join();
     }
 
+    @Test
+    @Order(6)
+    public void testCancelGetAllTodosEjbAsync() throws Exception {
+        // the query waits for the lock of an uncommitted todo. The lock wait timeout is longer than the query timeout,
+        // only the cancelled statement ends the query well before the query timeout.
+        setLockWaitTimeout("30");
+        var aborted = ejbTodoService.getAbortedQueries();
+        var cancelled = ejbTodoService.getCancelledStatements();
+        ux.begin();
+        try {
+            em.joinTransaction();
+            em.persist(Todo.of("locked"));
+            em.flush();
+
+            var todos = ejbTodoService.getAllTodosEjbAsync();
+            // the query is started and blocked
+            Thread.sleep(500);
+            var cancelledAt = System.nanoTime();
+            todos.cancel(true);
+            assertTrue(todos.isCancelled());
+            assertThrows(CancellationException.class, todos::join);
+
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (ejbTodoService.getAbortedQueries() == aborted && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            var elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cancelledAt);
+            LOGGER.log(Level.INFO, "aborted queries: {0}, cancelled statements: {1}, aborted after {2} ms",
+                    new Object[]{ejbTodoService.getAbortedQueries(), ejbTodoService.getCancelledStatements(),
+                            elapsedMillis});
+            assertEquals(cancelled + 1, ejbTodoService.getCancelledStatements());
+            assertEquals(aborted + 1, ejbTodoService.getAbortedQueries());
+            assertThat(elapsedMillis).isLessThan(TimeUnit.SECONDS.toMillis(EjbTodoService.QUERY_TIMEOUT_SECONDS) / 2);
+        } finally {
+            ux.rollback();
+            setLockWaitTimeout(null);
+        }
+    }
+
+    private static void setLockWaitTimeout(String seconds) throws Exception {
+        DataSource dataSource = InitialContext.doLookup("java:comp/DefaultDataSource");
+        try (var connection = dataSource.getConnection();
+             var call = connection.prepareCall(
+                     "CALL SYSCS_UTIL.SYSCS_SET_DATABASE_PROPERTY('derby.locks.waitTimeout', ?)")) {
+            call.setString(1, seconds);
+            call.execute();
+        }
+    }
 }
@@ -11,7 +11,7 @@ import java.util.UUID;
 public class Person {
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedTimeOrderedUuid
     private UUID id;
     private String name;
     private int age = 30;
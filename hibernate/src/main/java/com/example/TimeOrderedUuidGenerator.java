@@ -0,0 +1,31 @@
+package com.example;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Assigns a {@link TimeOrderedUuid} to the id annotated with {@link GeneratedTimeOrderedUuid} before the insert.
+ */
+public class TimeOrderedUuidGenerator implements BeforeExecutionGenerator {
+
+    public TimeOrderedUuidGenerator(GeneratedTimeOrderedUuid config, Member idMember,
+                                    CustomIdGeneratorCreationContext creationContext) {
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return TimeOrderedUuid.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -9,6 +9,10 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.UUID;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -49,6 +53,30 @@ class PersonUUIDTest {
         }
     }
 
+    @Test
+    @DisplayName("the generated ids are time-ordered UUIDs in the insertion order")
+    public void testTimeOrderedIds() throws Exception {
+        var entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        var ids = new ArrayList<UUID>();
+        for (int i = 0; i < 100; i++) {
+            var person = new Person("John " + i, 30);
+            entityManager.persist(person);
+            ids.add(person.getId());
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        assertThat(ids).allSatisfy(id -> assertThat(id.version()).isEqualTo(7));
+        assertThat(ids).isSortedAccordingTo(Comparator.naturalOrder());
+        assertThat(ids).doesNotHaveDuplicates();
+
+        // the database sorts them in the same order
+        var sorted = entityManager.createQuery("SELECT p.id FROM Person p ORDER BY p.id", UUID.class).getResultList();
+        assertThat(sorted).containsExactlyElementsOf(ids);
+        entityManager.close();
+    }
+
     @AfterEach
     void tearDown() {
         entityManagerFactory.close();
@@ -10,7 +10,9 @@ import java.util.UUID;
 public class Person {
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.UUID)
+    // a time-ordered UUID is generated instead of `@GeneratedValue(strategy = GenerationType.UUID)`,
+    // the random ones are scattered over the primary key index.
+    @GeneratedValue(generator = TimeOrderedUuidSequence.NAME)
     private UUID id;
     private String name;
     private int age = 30;
@@ -0,0 +1,109 @@
+package com.example;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes the persons one by one as a JSON array or as NDJSON(a JSON object per line) with a JSON-P generator,
+ * nothing but the current row is held in memory.
+ * <p>
+ * The properties are written in the same order and with the same names as JSON-B does for {@link Person}.
+ */
+public class PersonExportWriter implements Consumer<Person> {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Map.of());
+
+    private final boolean ndjson;
+    private final BufferedWriter writer;
+    // the generator of the array, unused in NDJSON
+    private final JsonGenerator array;
+    // every NDJSON line is a complete JSON text, and is written by its own generator that must not close the writer
+    private final FilterWriter line;
+    private long count;
+
+    public PersonExportWriter(OutputStream output, boolean ndjson) {
+        this.ndjson = ndjson;
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (ndjson) {
+            this.array = null;
+            this.line = new FilterWriter(writer) {
+                @Override
+                public void close() {
+                }
+            };
+        } else {
+            this.array = GENERATORS.createGenerator(writer).writeStartArray();
+            this.line = null;
+        }
+    }
+
+    @Override
+    public void accept(Person person) {
+        if (ndjson) {
+            try (var generator = GENERATORS.createGenerator(line)) {
+                write(generator, person);
+            }
+            try {
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            write(array, person);
+        }
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // completes the JSON array, the output stream is flushed but left open.
+    public void finish() throws IOException {
+        if (array != null) {
+            array.writeEnd().flush();
+        }
+        writer.flush();
+    }
+
+    // the null values are skipped like JSON-B does by default
+    private static void write(JsonGenerator generator, Person person) {
+        generator.writeStartObject()
+                .write("age", person.getAge());
+        if (person.getBirthDate() != null) {
+            generator.write("birthDate", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(person.getBirthDate()));
+        }
+        if (person.getGender() != null) {
+            generator.write("gender", person.getGender().name());
+        }
+        if (person.getHourlyRate() != null) {
+            generator.write("hourlyRate", person.getHourlyRate());
+        }
+        if (person.getId() != null) {
+            generator.write("id", person.getId().toString());
+        }
+        if (person.getName() != null) {
+            generator.write("name", person.getName());
+        }
+        if (person.getSalary() != null) {
+            generator.write("salary", person.getSalary());
+        }
+        if (person.getYearsWorked() != null) {
+            generator.write("yearsWorked", person.getYearsWorked());
+        }
+        generator.writeEnd();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example;
+
+import com.example.Person.Gender;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The criteria of a person search, all of them are optional.
+ * <p>
+ * The results are ordered by the {@link Sort} field and then by the id, a page continues after the {@link Cursor}
+ * of the last row of the previous page (keyset paging), instead of skipping the rows before it.
+ *
+ * @param fields the properties to select, the {@link PersonSummary} ones when empty.
+ */
+public record PersonFilter(Integer minAge,
+                           Integer maxAge,
+                           Gender gender,
+                           LocalDateTime bornAfter,
+                           LocalDateTime bornBefore,
+                           Sort sort,
+                           boolean descending,
+                           Cursor after,
+                           int limit,
+                           Set<String> fields) {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    // the selectable properties, in the order of the output
+    public static final List<String> FIELDS =
+            List.of("id", "name", "age", "gender", "yearsWorked", "birthDate", "salary", "hourlyRate");
+
+    public PersonFilter {
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new IllegalArgumentException("minAge is greater than maxAge");
+        }
+        if (bornAfter != null && bornBefore != null && bornAfter.isAfter(bornBefore)) {
+            throw new IllegalArgumentException("bornAfter is later than bornBefore");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        sort = sort != null ? sort : Sort.ID;
+        fields = fields != null ? Set.copyOf(fields) : Set.of();
+        for (var field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("unknown field: " + field);
+            }
+        }
+    }
+
+    public static PersonFilter all() {
+        return new PersonFilter(null, null, null, null, null, Sort.ID, false, null, DEFAULT_LIMIT, Set.of());
+    }
+
+    // the requested properties in the output order, the id is always included, it is part of the cursor.
+    public List<String> selectedFields() {
+        var selected = new LinkedHashSet<String>();
+        selected.add("id");
+        FIELDS.stream().filter(fields::contains).forEach(selected::add);
+        return List.copyOf(selected);
+    }
+
+    public PersonFilter withAfter(Cursor after) {
+        return new PersonFilter(minAge, maxAge, gender, bornAfter, bornBefore, sort, descending, after, limit, fields);
+    }
+
+    // the sortable properties, the values of them are part of the cursor.
+    public enum Sort {
+        ID("id", UUID::fromString),
+        NAME("name", value -> value),
+        AGE("age", Integer::valueOf),
+        BIRTH_DATE("birthDate", LocalDateTime::parse);
+
+        private final String attribute;
+        private final Function<String, Object> parser;
+
+        Sort(String attribute, Function<String, Object> parser) {
+            this.attribute = attribute;
+            this.parser = parser;
+        }
+
+        public String attribute() {
+            return attribute;
+        }
+
+        Object parse(String value) {
+            return parser.apply(value);
+        }
+
+        // accepts the attribute name, e.g. `birthDate`
+        public static Sort of(String attribute) {
+            return Arrays.stream(values())
+                    .filter(it -> it.attribute.equals(attribute) || it.name().equals(attribute.toUpperCase(Locale.ROOT)))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unsupported sort: " + attribute));
+        }
+    }
+
+    /**
+     * The position of a row in the sort order, it is passed to the clients as an opaque string.
+     */
+    public record Cursor(Object value, UUID id) {
+
+        public String encode() {
+            var text = (value != null ? value.toString() : "") + "\n" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String cursor, Sort sort) {
+            try {
+                var text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                var separator = text.lastIndexOf('\n');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("invalid cursor: " + cursor);
+                }
+                var id = UUID.fromString(text.substring(separator + 1));
+                return new Cursor(sort.parse(text.substring(0, separator)), id);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * A page of the person search.
+ *
+ * @param next the cursor of the next page, null on the last page.
+ */
+public record PersonPage<T>(List<T> items, String next) {
+}
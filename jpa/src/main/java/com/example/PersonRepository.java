@@ -1,19 +1,422 @@
 package com.example;
 
+import com.example.Person.Gender;
+import com.example.PersonFilter.Cursor;
+import com.example.PersonFilter.Sort;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Stateless
 public class PersonRepository {
+    private static final String SORT_KEY = "sortKey";
+    // the persons without a birth date are sorted as if they were born on it, before all the others.
+    static final LocalDateTime NO_BIRTH_DATE = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final int[] PERCENTILES = {50, 90, 99};
+
+    // the provider specific hints of the read-only queries, a provider ignores the hints of the others.
+    // EclipseLink returns the shared cache objects instead of registering a working copy and a backup clone for
+    // every row, Hibernate skips the snapshot for the dirty checking.
+    public static final Map<String, Object> READ_ONLY_HINTS = Map.of(
+            "eclipselink.read-only", "true",
+            "eclipselink.jdbc.fetch-size", "500",
+            "org.hibernate.readOnly", true,
+            "org.hibernate.fetchSize", 500
+    );
+
+    // rows fetched per JDBC round-trip in the export, and rows kept in the persistence context before it is cleared.
+    static final int EXPORT_FETCH_SIZE = Integer.getInteger("com.example.person.export.fetch-size", 1000);
 
     @PersistenceContext
     EntityManager entityManager;
 
+    // creates the entity manager of the export, it is not bound to a transaction.
+    @PersistenceUnit
+    EntityManagerFactory entityManagerFactory;
+
+    // the persons are managed until the end of the transaction, use it when they are updated.
     public List<Person> getAllPersons() {
         return entityManager.createQuery("select p from Person p", Person.class)
                 .getResultList();
     }
+
+    // without a transaction, the persistence context ends with the call and the persons are returned detached.
+    // The results must not be modified, with EclipseLink they are the shared cache objects.
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<Person> getAllPersonsReadOnly() {
+        return readOnly(entityManager.createQuery("select p from Person p", Person.class))
+                .getResultList();
+    }
+
+    /**
+     * Scrolls through all persons with a database cursor and hands them to the consumer one by one.
+     * <p>
+     * It runs without a container transaction, a 10M rows export would outlive the JTA transaction timeout. The
+     * cursor is read by an application-managed entity manager, which is cleared while scrolling and closed at the
+     * end, the rows are read-only and never flushed.
+     *
+     * @return the number of the persons.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public long streamAll(Consumer<Person> consumer) {
+        var exportEntityManager = entityManagerFactory.createEntityManager();
+        try {
+            var query = exportEntityManager.createQuery("select p from Person p order by p.id", Person.class)
+                    // for Glassfish/Payara/EclipseLink, a scrollable cursor does not hold on to the rows read,
+                    // unlike the default cursored stream
+                    .setHint("eclipselink.cursor.scrollable", true)
+                    .setHint("eclipselink.read-only", true)
+                    .setHint("eclipselink.jdbc.fetch-size", EXPORT_FETCH_SIZE)
+                    // for WildFly/Hibernate
+                    .setHint("org.hibernate.readOnly", true)
+                    .setHint("org.hibernate.fetchSize", EXPORT_FETCH_SIZE);
+            var count = 0L;
+            try (var persons = query.getResultStream()) {
+                for (var it = persons.iterator(); it.hasNext(); ) {
+                    consumer.accept(it.next());
+                    if (++count % EXPORT_FETCH_SIZE == 0) {
+                        exportEntityManager.clear();
+                    }
+                }
+            }
+            return count;
+        } finally {
+            exportEntityManager.close();
+        }
+    }
+
+    // selects the summary columns into records, the rows are not managed entities.
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public PersonPage<PersonSummary> findPersonSummaries(PersonFilter filter) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(PersonSummary.class);
+        var root = query.from(Person.class);
+        query.select(cb.construct(PersonSummary.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("age"),
+                root.get("gender"),
+                root.get("birthDate")
+        ));
+        var sortKey = sortKey(cb, root, filter.sort());
+        where(cb, query, root, sortKey, filter);
+        orderBy(cb, query, root, sortKey, filter);
+
+        var rows = readOnly(entityManager.createQuery(query))
+                .setMaxResults(filter.limit() + 1)
+                .getResultList();
+        return page(rows, filter.limit(), row -> new Cursor(sortValue(row, filter.sort()), row.id()));
+    }
+
+    // selects only the requested columns, every row is a map of the field names to the values.
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public PersonPage<Map<String, Object>> findPersonFields(PersonFilter filter) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createTupleQuery();
+        var root = query.from(Person.class);
+        var sortKey = sortKey(cb, root, filter.sort());
+        var fields = filter.selectedFields();
+        var selections = new ArrayList<Selection<?>>();
+        fields.forEach(field -> selections.add(root.get(field).alias(field)));
+        if (filter.sort() != Sort.ID) {
+            selections.add(sortKey.alias(SORT_KEY));
+        }
+        query.multiselect(selections);
+        where(cb, query, root, sortKey, filter);
+        orderBy(cb, query, root, sortKey, filter);
+
+        var rows = readOnly(entityManager.createQuery(query))
+                .setMaxResults(filter.limit() + 1)
+                .getResultList();
+        var page = page(rows, filter.limit(), row -> {
+            var id = row.get("id", UUID.class);
+            return new Cursor(filter.sort() == Sort.ID ? id : toCursorValue(row.get(SORT_KEY)), id);
+        });
+        return new PersonPage<>(page.items().stream().map(row -> toMap(row, fields)).toList(), page.next());
+    }
+
+    /**
+     * The salary statistics of every gender, the rows are grouped into salary bands in the database and only the
+     * bands are read, the percentiles are interpolated in the bands, they are exact to the band width.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<SalaryStats> salaryStatsByGender(int bandWidth) {
+        // the width is validated by the caller, it is inlined as the databases do not accept parameters in GROUP BY
+        var band = "FLOOR(p.salary / " + bandWidth + ")";
+        var rows = readOnly(entityManager.createQuery("""
+                        SELECT p.gender AS gender,
+                        %1$s AS band,
+                        COUNT(p) AS persons,
+                        MIN(p.salary) AS minSalary,
+                        MAX(p.salary) AS maxSalary,
+                        SUM(p.salary) AS totalSalary
+                        FROM Person p
+                        WHERE p.salary IS NOT NULL
+                        GROUP BY p.gender, %1$s
+                        ORDER BY p.gender, %1$s
+                        """.formatted(band), Tuple.class))
+                .getResultList();
+
+        var bandsByGender = new LinkedHashMap<Gender, List<SalaryBand>>();
+        var totals = new LinkedHashMap<Gender, BigDecimal>();
+        for (var row : rows) {
+            var gender = row.get("gender", Gender.class);
+            var from = toBigDecimal(row.get("band")).multiply(BigDecimal.valueOf(bandWidth));
+            bandsByGender.computeIfAbsent(gender, it -> new ArrayList<>()).add(new SalaryBand(
+                    from,
+                    from.add(BigDecimal.valueOf(bandWidth)),
+                    row.get("persons", Long.class),
+                    toBigDecimal(row.get("minSalary")),
+                    toBigDecimal(row.get("maxSalary"))
+            ));
+            totals.merge(gender, toBigDecimal(row.get("totalSalary")), BigDecimal::add);
+        }
+
+        var stats = new ArrayList<SalaryStats>();
+        bandsByGender.forEach((gender, bands) -> {
+            var count = bands.stream().mapToLong(SalaryBand::count).sum();
+            var percentiles = new LinkedHashMap<String, BigDecimal>();
+            for (var percentile : PERCENTILES) {
+                percentiles.put("p" + percentile, percentile(bands, count, percentile / 100.0));
+            }
+            stats.add(new SalaryStats(
+                    gender,
+                    count,
+                    bands.get(0).min(),
+                    bands.get(bands.size() - 1).max(),
+                    totals.get(gender).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP),
+                    percentiles,
+                    bands
+            ));
+        });
+        return stats;
+    }
+
+    // the number of the persons and their average salary in the age buckets, e.g. 20-29, 30-39.
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<AgeBucket> ageBuckets(int bucketSize) {
+        var bucket = "FLOOR(p.age / " + bucketSize + ")";
+        return readOnly(entityManager.createQuery("""
+                        SELECT %1$s AS bucket,
+                        COUNT(p) AS persons,
+                        ROUND(AVG(p.salary), 2) AS averageSalary
+                        FROM Person p
+                        GROUP BY %1$s
+                        ORDER BY %1$s
+                        """.formatted(bucket), Tuple.class))
+                .getResultList()
+                .stream()
+                .map(row -> {
+                    var from = toBigDecimal(row.get("bucket")).intValue() * bucketSize;
+                    return new AgeBucket(
+                            from,
+                            from + bucketSize - 1,
+                            row.get("persons", Long.class),
+                            toBigDecimal(row.get("averageSalary"))
+                    );
+                })
+                .toList();
+    }
+
+    // the persons grouped by the years worked.
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public List<TenureStats> tenureStats() {
+        return readOnly(entityManager.createQuery("""
+                        SELECT p.yearsWorked AS yearsWorked,
+                        COUNT(p) AS persons,
+                        ROUND(AVG(p.salary), 2) AS averageSalary,
+                        ROUND(AVG(p.hourlyRate), 2) AS averageHourlyRate,
+                        MIN(EXTRACT(YEAR FROM p.birthDate)) AS minBirthYear,
+                        MAX(EXTRACT(YEAR FROM p.birthDate)) AS maxBirthYear
+                        FROM Person p
+                        GROUP BY p.yearsWorked
+                        ORDER BY p.yearsWorked
+                        """, Tuple.class))
+                .getResultList()
+                .stream()
+                .map(row -> new TenureStats(
+                        row.get("yearsWorked", Integer.class),
+                        row.get("persons", Long.class),
+                        toBigDecimal(row.get("averageSalary")),
+                        toBigDecimal(row.get("averageHourlyRate")),
+                        toInteger(row.get("minBirthYear")),
+                        toInteger(row.get("maxBirthYear"))
+                ))
+                .toList();
+    }
+
+    // interpolates linearly between the lowest and highest salary of the band holding the rank
+    static BigDecimal percentile(List<SalaryBand> bands, long count, double percentile) {
+        var rank = percentile * count;
+        var below = 0L;
+        for (var band : bands) {
+            if (below + band.count() >= rank) {
+                var fraction = band.count() > 0 ? Math.max(0, rank - below) / band.count() : 0;
+                return band.min()
+                        .add(band.max().subtract(band.min()).multiply(BigDecimal.valueOf(fraction)))
+                        .setScale(2, RoundingMode.HALF_UP);
+            }
+            below += band.count();
+        }
+        return bands.get(bands.size() - 1).max().setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // the numeric types of the function results depend on the database
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+
+    private static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        READ_ONLY_HINTS.forEach(query::setHint);
+        return query;
+    }
+
+    private static Expression<?> sortKey(CriteriaBuilder cb, Root<Person> root, Sort sort) {
+        return switch (sort) {
+            // the names and the birth dates are nullable, a null can not be compared in the keyset predicate.
+            case NAME -> cb.coalesce(root.<String>get("name"), "");
+            case BIRTH_DATE -> cb.coalesce(root.<LocalDateTime>get("birthDate"), NO_BIRTH_DATE);
+            default -> root.get(sort.attribute());
+        };
+    }
+
+    private static void where(CriteriaBuilder cb, AbstractQuery<?> query, Root<Person> root,
+                              Expression<?> sortKey, PersonFilter filter) {
+        var predicates = new ArrayList<Predicate>();
+        if (filter.minAge() != null) {
+            predicates.add(cb.ge(root.get("age"), filter.minAge()));
+        }
+        if (filter.maxAge() != null) {
+            predicates.add(cb.le(root.get("age"), filter.maxAge()));
+        }
+        if (filter.gender() != null) {
+            predicates.add(cb.equal(root.get("gender"), filter.gender()));
+        }
+        if (filter.bornAfter() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("birthDate"), filter.bornAfter()));
+        }
+        if (filter.bornBefore() != null) {
+            predicates.add(cb.lessThan(root.get("birthDate"), filter.bornBefore()));
+        }
+        if (filter.after() != null) {
+            predicates.add(after(cb, root.get("id"), sortKey, filter));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+    }
+
+    // the rows after the cursor in the sort order: (sortKey, id) > (cursor value, cursor id)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Path<UUID> id, Expression sortKey, PersonFilter filter) {
+        var cursor = filter.after();
+        var descending = filter.descending();
+        var afterId = descending ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+        if (filter.sort() == Sort.ID) {
+            return afterId;
+        }
+        var value = (Comparable) cursor.value();
+        var afterValue = descending ? cb.lessThan(sortKey, value) : cb.greaterThan(sortKey, value);
+        return cb.or(afterValue, cb.and(cb.equal(sortKey, value), afterId));
+    }
+
+    private static void orderBy(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Person> root,
+                                Expression<?> sortKey, PersonFilter filter) {
+        Function<Expression<?>, Order> order = filter.descending() ? cb::desc : cb::asc;
+        if (filter.sort() == Sort.ID) {
+            query.orderBy(order.apply(root.get("id")));
+        } else {
+            query.orderBy(order.apply(sortKey), order.apply(root.get("id")));
+        }
+    }
+
+    // one more row than the limit is fetched to tell if there is a next page.
+    private static <T> PersonPage<T> page(List<T> rows, int limit, Function<T, Cursor> cursor) {
+        if (rows.size() <= limit) {
+            return new PersonPage<>(rows, null);
+        }
+        var items = rows.subList(0, limit);
+        return new PersonPage<>(items, cursor.apply(items.get(limit - 1)).encode());
+    }
+
+    private static Object sortValue(PersonSummary person, Sort sort) {
+        return switch (sort) {
+            case ID -> person.id();
+            case NAME -> person.name() != null ? person.name() : "";
+            case AGE -> person.age();
+            case BIRTH_DATE -> person.birthDate() != null ? person.birthDate() : NO_BIRTH_DATE;
+        };
+    }
+
+    // the provider may return the coalesced birth date as a JDBC timestamp, the cursor holds a LocalDateTime.
+    private static Object toCursorValue(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+    }
+
+    private static Map<String, Object> toMap(Tuple row, List<String> fields) {
+        var values = new LinkedHashMap<String, Object>();
+        fields.forEach(field -> values.put(field, row.get(field)));
+        return values;
+    }
+
+    /**
+     * The persons with a salary in {@code [from, to)}.
+     */
+    public record SalaryBand(BigDecimal from, BigDecimal to, long count, BigDecimal min, BigDecimal max) {
+    }
+
+    /**
+     * @param percentiles the salaries at the 50th, 90th and 99th percentiles, keyed by `p50`, `p90` and `p99`.
+     */
+    public record SalaryStats(Gender gender,
+                              long count,
+                              BigDecimal min,
+                              BigDecimal max,
+                              BigDecimal average,
+                              Map<String, BigDecimal> percentiles,
+                              List<SalaryBand> bands) {
+    }
+
+    public record AgeBucket(int from, int to, long count, BigDecimal averageSalary) {
+    }
+
+    public record TenureStats(Integer yearsWorked,
+                              long count,
+                              BigDecimal averageSalary,
+                              BigDecimal averageHourlyRate,
+                              Integer minBirthYear,
+                              Integer maxBirthYear) {
+    }
 }
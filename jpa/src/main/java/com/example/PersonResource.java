@@ -1,17 +1,37 @@
 package com.example;
 
 
+import com.example.Person.Gender;
+import com.example.PersonFilter.Cursor;
+import com.example.PersonFilter.Sort;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 @RequestScoped
 @Path("/persons")
 public class PersonResource {
+    private static final Logger LOGGER = Logger.getLogger(PersonResource.class.getName());
 
     @Inject
     PersonRepository personRepository;
@@ -20,7 +40,125 @@ public class PersonResource {
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response allPersons() {
-        var data = personRepository.getAllPersons();
+        var data = personRepository.getAllPersonsReadOnly();
+        return Response.ok(data).build();
+    }
+
+    // only the aggregated rows are read from the database
+    @Path("stats/salaries")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response salaryStats(@QueryParam("bandWidth") @DefaultValue("1000") int bandWidth) {
+        if (bandWidth < 1 || bandWidth > 1_000_000) {
+            throw new BadRequestException("bandWidth must be between 1 and 1000000");
+        }
+        return Response.ok(personRepository.salaryStatsByGender(bandWidth)).build();
+    }
+
+    @Path("stats/ages")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response ageBuckets(@QueryParam("bucketSize") @DefaultValue("10") int bucketSize) {
+        if (bucketSize < 1 || bucketSize > 100) {
+            throw new BadRequestException("bucketSize must be between 1 and 100");
+        }
+        return Response.ok(personRepository.ageBuckets(bucketSize)).build();
+    }
+
+    @Path("stats/tenure")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response tenureStats() {
+        return Response.ok(personRepository.tenureStats()).build();
+    }
+
+    // writes all the persons as a JSON array, or as NDJSON with `format=ndjson`, while they are read from the
+    // database cursor. The memory in use does not depend on the number of the persons.
+    @Path("export")
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, PersonExportWriter.APPLICATION_NDJSON})
+    public Response exportPersons(@QueryParam("format") @DefaultValue("json") String format) {
+        var ndjson = switch (format) {
+            case "json" -> false;
+            case "ndjson" -> true;
+            default -> throw new BadRequestException("unsupported format: " + format);
+        };
+        StreamingOutput body = output -> {
+            var started = System.nanoTime();
+            var writer = new PersonExportWriter(output, ndjson);
+            try {
+                personRepository.streamAll(writer);
+            } catch (RuntimeException e) {
+                // the EJB container may wrap the exception thrown by the consumer.
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof UncheckedIOException ioe) {
+                        throw ioe.getCause();
+                    }
+                }
+                throw e;
+            }
+            writer.finish();
+            LOGGER.log(Level.INFO, "exported {0} persons in {1} ms",
+                    new Object[]{writer.getCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)});
+        };
+        return Response.ok(body, ndjson ? PersonExportWriter.APPLICATION_NDJSON : MediaType.APPLICATION_JSON).build();
+    }
+
+    // e.g. `/persons/query?minAge=18&gender=FEMALE&sort=-birthDate&fields=name,age&limit=50`,
+    // the `next` cursor of the result is passed as `after` to get the next page.
+    @Path("query")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response queryPersons(@QueryParam("minAge") Integer minAge,
+                                 @QueryParam("maxAge") Integer maxAge,
+                                 @QueryParam("gender") String gender,
+                                 @QueryParam("bornAfter") String bornAfter,
+                                 @QueryParam("bornBefore") String bornBefore,
+                                 @QueryParam("sort") @DefaultValue("id") String sort,
+                                 @QueryParam("after") String after,
+                                 @QueryParam("limit") @DefaultValue("" + PersonFilter.DEFAULT_LIMIT) int limit,
+                                 @QueryParam("fields") String fields) {
+        PersonFilter filter;
+        try {
+            var descending = sort.startsWith("-");
+            var sortBy = Sort.of(descending ? sort.substring(1) : sort);
+            filter = new PersonFilter(
+                    minAge,
+                    maxAge,
+                    gender != null ? Gender.valueOf(gender.toUpperCase(Locale.ROOT)) : null,
+                    toDateTime(bornAfter),
+                    toDateTime(bornBefore),
+                    sortBy,
+                    descending,
+                    after != null ? Cursor.decode(after, sortBy) : null,
+                    limit,
+                    toFields(fields)
+            );
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+
+        var data = filter.fields().isEmpty()
+                ? personRepository.findPersonSummaries(filter)
+                : personRepository.findPersonFields(filter);
         return Response.ok(data).build();
     }
+
+    private static Set<String> toFields(String value) {
+        if (value == null) {
+            return null;
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::strip)
+                .filter(it -> !it.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    // accepts a date, e.g. `2000-01-31`, or a date time
+    private static LocalDateTime toDateTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+    }
 }
@@ -0,0 +1,10 @@
+package com.example;
+
+import com.example.Person.Gender;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// the default projection of the person search, it is built by a constructor expression, the salary columns are skipped.
+public record PersonSummary(UUID id, String name, int age, Gender gender, LocalDateTime birthDate) {
+}
@@ -0,0 +1,47 @@
+package com.example;
+
+import com.example.PersonFilter.Cursor;
+import com.example.PersonFilter.Sort;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PersonFilterTest {
+
+    @Test
+    @DisplayName("Test the cursor round trip")
+    public void testCursor() {
+        var id = UUID.randomUUID();
+        var birthDate = LocalDateTime.of(2000, 1, 31, 12, 30);
+
+        assertEquals(new Cursor(birthDate, id), Cursor.decode(new Cursor(birthDate, id).encode(), Sort.BIRTH_DATE));
+        assertEquals(new Cursor(30, id), Cursor.decode(new Cursor(30, id).encode(), Sort.AGE));
+        assertEquals(new Cursor("Jack\nRose", id), Cursor.decode(new Cursor("Jack\nRose", id).encode(), Sort.NAME));
+        assertEquals(new Cursor(id, id), Cursor.decode(new Cursor(id, id).encode(), Sort.ID));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decode("not a cursor", Sort.AGE));
+    }
+
+    @Test
+    @DisplayName("Test the selected fields")
+    public void testSelectedFields() {
+        var filter = new PersonFilter(null, null, null, null, null, Sort.of("birthDate"), false, null, 10,
+                Set.of("age", "name"));
+        assertEquals(Sort.BIRTH_DATE, filter.sort());
+        assertEquals(List.of("id", "name", "age"), filter.selectedFields());
+
+        assertThrows(IllegalArgumentException.class, () -> Sort.of("salary"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PersonFilter(null, null, null, null, null, null, false, null, 10, Set.of("password")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PersonFilter(40, 30, null, null, null, null, false, null, 10, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PersonFilter(null, null, null, null, null, null, false, null, PersonFilter.MAX_LIMIT + 1, null));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example;
+
+import com.example.PersonRepository.SalaryBand;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SalaryPercentileTest {
+
+    @Test
+    @DisplayName("Test the percentiles interpolated in the salary bands")
+    public void testPercentile() {
+        var bands = List.of(
+                band(1000, 50, "1000", "1990"),
+                band(2000, 40, "2000", "2900"),
+                band(3000, 10, "3000", "3000")
+        );
+
+        assertEquals(new BigDecimal("1990.00"), PersonRepository.percentile(bands, 100, 0.5));
+        assertEquals(new BigDecimal("2900.00"), PersonRepository.percentile(bands, 100, 0.9));
+        assertEquals(new BigDecimal("2450.00"), PersonRepository.percentile(bands, 100, 0.7));
+        assertEquals(new BigDecimal("3000.00"), PersonRepository.percentile(bands, 100, 0.99));
+    }
+
+    private static SalaryBand band(int from, long count, String min, String max) {
+        return new SalaryBand(BigDecimal.valueOf(from), BigDecimal.valueOf(from + 1000), count,
+                new BigDecimal(min), new BigDecimal(max));
+    }
+}
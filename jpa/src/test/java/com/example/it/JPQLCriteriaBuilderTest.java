@@ -20,6 +20,8 @@ package com.example.it;
 
 import com.example.Person;
 import com.example.Person.Gender;
+import com.example.TimeOrderedUuid;
+import com.example.TimeOrderedUuidSequence;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -51,7 +53,7 @@ public class JPQLCriteriaBuilderTest {
     @Deployment
     public static WebArchive createDeployment() {
         return ShrinkWrap.create(WebArchive.class)
-                .addClasses(Person.class, Gender.class)
+                .addClasses(Person.class, Gender.class, TimeOrderedUuid.class, TimeOrderedUuidSequence.class)
                 .addAsResource("test-persistence.xml", "META-INF/persistence.xml")
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
     }
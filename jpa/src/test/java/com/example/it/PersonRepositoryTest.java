@@ -0,0 +1,240 @@
+package com.example.it;
+
+import com.example.Person;
+import com.example.Person.Gender;
+import com.example.PersonExportWriter;
+import com.example.PersonFilter;
+import com.example.PersonFilter.Cursor;
+import com.example.PersonFilter.Sort;
+import com.example.PersonPage;
+import com.example.PersonRepository;
+import com.example.PersonSummary;
+import com.example.TimeOrderedUuid;
+import com.example.TimeOrderedUuidSequence;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.UserTransaction;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit5.ArquillianExtension;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(ArquillianExtension.class)
+public class PersonRepositoryTest {
+
+    private final static Logger LOGGER = Logger.getLogger(PersonRepositoryTest.class.getName());
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return ShrinkWrap.create(WebArchive.class)
+                .addClasses(Person.class, Gender.class, TimeOrderedUuid.class, TimeOrderedUuidSequence.class,
+                        PersonRepository.class, PersonFilter.class, PersonSummary.class, PersonPage.class,
+                        PersonExportWriter.class)
+                .addAsResource("test-persistence.xml", "META-INF/persistence.xml")
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Inject
+    UserTransaction ux;
+
+    @Inject
+    PersonRepository personRepository;
+
+    @BeforeEach
+    public void before() throws Exception {
+        ux.begin();
+        em.joinTransaction();
+        em.createQuery(em.getCriteriaBuilder().createCriteriaDelete(Person.class)).executeUpdate();
+        for (int i = 1; i <= 10; i++) {
+            var person = new Person("Person " + i, 20 + i);
+            person.setGender(i % 2 == 0 ? Gender.FEMALE : Gender.MALE);
+            em.persist(person);
+        }
+        ux.commit();
+    }
+
+    @Test
+    public void testGetAllPersonsReadOnly() throws Exception {
+        var persons = personRepository.getAllPersonsReadOnly();
+        LOGGER.log(Level.INFO, "read-only persons: {0}", persons);
+        assertEquals(10, persons.size());
+        assertEquals(personRepository.getAllPersons().size(), persons.size());
+    }
+
+    @Test
+    public void testExportAsNdjson() throws Exception {
+        var output = new ByteArrayOutputStream();
+        var writer = new PersonExportWriter(output, true);
+        var count = personRepository.streamAll(writer);
+        writer.finish();
+
+        var lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        LOGGER.log(Level.INFO, "exported: {0}", lines);
+        assertEquals(10, count);
+        assertEquals(10, lines.size());
+        try (var reader = Json.createReader(new StringReader(lines.get(0)))) {
+            var person = reader.readObject();
+            assertNotNull(person.getString("id"));
+            assertTrue(person.getString("name").startsWith("Person "));
+
+            // the exported row is the same JSON as the one written by JSON-B
+            var entity = em.find(Person.class, UUID.fromString(person.getString("id")));
+            try (var jsonb = JsonbBuilder.create();
+                 var expected = Json.createReader(new StringReader(jsonb.toJson(entity)))) {
+                assertEquals(expected.readObject(), person);
+            }
+        }
+    }
+
+    @Test
+    public void testExportAsJsonArray() throws Exception {
+        var output = new ByteArrayOutputStream();
+        var writer = new PersonExportWriter(output, false);
+        personRepository.streamAll(writer);
+        writer.finish();
+
+        try (var reader = Json.createReader(new StringReader(output.toString(StandardCharsets.UTF_8)))) {
+            assertEquals(10, reader.readArray().size());
+        }
+    }
+
+    @Test
+    public void testAggregates() throws Exception {
+        var salaries = personRepository.salaryStatsByGender(1000);
+        LOGGER.log(Level.INFO, "salary stats: {0}", salaries);
+        assertEquals(2, salaries.size());
+        salaries.forEach(stats -> {
+            assertEquals(5, stats.count());
+            // all the persons have the default salary
+            assertEquals(0, stats.min().compareTo(stats.max()));
+            assertEquals(0, stats.min().setScale(2, RoundingMode.HALF_UP).compareTo(stats.percentiles().get("p50")));
+            assertEquals(1, stats.bands().size());
+        });
+
+        var ages = personRepository.ageBuckets(10);
+        LOGGER.log(Level.INFO, "age buckets: {0}", ages);
+        assertEquals(2, ages.size());
+        assertEquals(20, ages.get(0).from());
+        assertEquals(9, ages.get(0).count());
+        assertEquals(30, ages.get(1).from());
+        assertEquals(1, ages.get(1).count());
+
+        var tenure = personRepository.tenureStats();
+        LOGGER.log(Level.INFO, "tenure stats: {0}", tenure);
+        assertEquals(1, tenure.size());
+        assertEquals(2, (int) tenure.get(0).yearsWorked());
+        assertEquals(10, tenure.get(0).count());
+    }
+
+    @Test
+    public void testFilterAndKeysetPaging() throws Exception {
+        var filter = new PersonFilter(23, null, Gender.FEMALE, null, null, Sort.AGE, true, null, 2, null);
+
+        var ages = new ArrayList<Integer>();
+        PersonPage<PersonSummary> page;
+        var pages = 0;
+        do {
+            page = personRepository.findPersonSummaries(filter);
+            LOGGER.log(Level.INFO, "page: {0}", page);
+            page.items().forEach(person -> ages.add(person.age()));
+            pages++;
+            if (page.next() != null) {
+                filter = filter.withAfter(Cursor.decode(page.next(), filter.sort()));
+            }
+        } while (page.next() != null);
+
+        assertEquals(List.of(30, 28, 26, 24), ages);
+        assertEquals(2, pages);
+    }
+
+    @Test
+    public void testKeysetPagingWithoutBirthDates() throws Exception {
+        ux.begin();
+        em.joinTransaction();
+        var unknown = new HashSet<UUID>();
+        for (int i = 1; i <= 3; i++) {
+            var person = new Person("Unknown " + i, 40);
+            person.setBirthDate(null);
+            em.persist(person);
+            unknown.add(person.getId());
+        }
+        ux.commit();
+
+        for (var descending : List.of(false, true)) {
+            var filter = new PersonFilter(null, null, null, null, null, Sort.BIRTH_DATE, descending, null, 2, null);
+
+            var ids = new ArrayList<UUID>();
+            var summaries = filter;
+            PersonPage<PersonSummary> page;
+            do {
+                page = personRepository.findPersonSummaries(summaries);
+                page.items().forEach(person -> ids.add(person.id()));
+                if (page.next() != null) {
+                    summaries = summaries.withAfter(Cursor.decode(page.next(), filter.sort()));
+                }
+            } while (page.next() != null);
+
+            var fieldIds = new ArrayList<Object>();
+            var fields = filter;
+            PersonPage<Map<String, Object>> fieldsPage;
+            do {
+                fieldsPage = personRepository.findPersonFields(fields);
+                fieldsPage.items().forEach(person -> fieldIds.add(person.get("id")));
+                if (fieldsPage.next() != null) {
+                    fields = fields.withAfter(Cursor.decode(fieldsPage.next(), filter.sort()));
+                }
+            } while (fieldsPage.next() != null);
+            LOGGER.log(Level.INFO, "descending: {0}, ids: {1}", new Object[]{descending, ids});
+
+            // every person is read once, the ones without a birth date are sorted before the others
+            assertEquals(13, ids.size());
+            assertEquals(13, Set.copyOf(ids).size());
+            assertEquals(ids, fieldIds);
+            assertEquals(unknown, Set.copyOf(descending ? ids.subList(10, 13) : ids.subList(0, 3)));
+        }
+    }
+
+    @Test
+    public void testSelectRequestedFields() throws Exception {
+        var filter = new PersonFilter(null, 22, null, null, null, Sort.NAME, false, null, 10, Set.of("name"));
+
+        var page = personRepository.findPersonFields(filter);
+        LOGGER.log(Level.INFO, "page: {0}", page);
+        assertNull(page.next());
+        assertEquals(2, page.items().size());
+        var first = page.items().get(0);
+        assertEquals(Set.of("id", "name"), first.keySet());
+        assertEquals("Person 1", first.get("name"));
+        assertNotNull(first.get("id"));
+        assertFalse(first.containsKey("salary"));
+    }
+}
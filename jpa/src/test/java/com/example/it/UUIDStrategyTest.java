@@ -20,6 +20,8 @@ package com.example.it;
 
 import com.example.Person;
 import com.example.Person.Gender;
+import com.example.TimeOrderedUuid;
+import com.example.TimeOrderedUuidSequence;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -35,10 +37,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.ArrayList;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(ArquillianExtension.class)
 public class UUIDStrategyTest {
@@ -48,7 +54,7 @@ public class UUIDStrategyTest {
     @Deployment
     public static WebArchive createDeployment() {
         return ShrinkWrap.create(WebArchive.class)
-                .addClasses(Person.class, Gender.class)
+                .addClasses(Person.class, Gender.class, TimeOrderedUuid.class, TimeOrderedUuidSequence.class)
                 .addAsResource("test-persistence.xml", "META-INF/persistence.xml")
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
     }
@@ -96,4 +102,27 @@ public class UUIDStrategyTest {
         assertNotNull(foundPerson.getId());
         LOGGER.log(Level.INFO, "Found person: {0}", foundPerson);
     }
+
+    @Test
+    public void testTimeOrderedIds() throws Exception {
+        var ids = new ArrayList<UUID>();
+        for (int i = 0; i < 100; i++) {
+            var person = new Person("Person " + i, 30);
+            em.persist(person);
+            ids.add(person.getId());
+        }
+        endTx();
+
+        ids.forEach(id -> assertEquals(7, id.version()));
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0, "ids are increasing");
+        }
+
+        startTx();
+        // the database sorts them in the insertion order
+        var sorted = em.createQuery("select p.id from Person p where p.id in :ids order by p.id", UUID.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        assertEquals(ids, sorted);
+    }
 }
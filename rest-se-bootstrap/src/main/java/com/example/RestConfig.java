@@ -9,6 +9,6 @@ import java.util.Set;
 public class RestConfig extends Application {
     @Override
     public Set<Class<?>> getClasses() {
-        return Set.of(GreetingResource.class);
+        return Set.of(GreetingResource.class, CompressionInterceptor.class);
     }
 }
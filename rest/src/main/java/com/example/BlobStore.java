@@ -0,0 +1,221 @@
+package com.example;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Content addressed storage for the uploaded files.
+ * <p>
+ * The content is hashed(SHA-256) while it is written to a temporary file, and then linked to
+ * {@code blobs/<first 2 chars>/<digest>}, if a blob with the same digest exists, the temporary file is dropped.
+ * The file names are mapped to the digests in an in-memory index, which is backed by an append-only log.
+ * The files saved directly in the upload directory by the earlier versions are moved into the blobs on start.
+ */
+@ApplicationScoped
+public class BlobStore {
+    private static final Logger LOGGER = Logger.getLogger(BlobStore.class.getName());
+
+    @Inject
+    UploadWriter uploadWriter;
+
+    Path root;
+    Path blobs;
+    Path tmp;
+    Path indexLog;
+
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+    private final LongAdder duplicates = new LongAdder();
+    private BufferedWriter indexWriter;
+
+    @PostConstruct
+    public void init() {
+        try {
+            root = Paths.get("/temp/uploads");
+            blobs = Files.createDirectories(root.resolve("blobs"));
+            tmp = Files.createDirectories(root.resolve("tmp"));
+            indexLog = root.resolve("index.log");
+            if (Files.exists(indexLog)) {
+                // the later entries win
+                try (var lines = Files.lines(indexLog, StandardCharsets.UTF_8)) {
+                    lines.map(line -> line.split("\t", 2))
+                            .filter(entry -> entry.length == 2)
+                            .forEach(entry -> index.put(unescape(entry[1]), entry[0]));
+                }
+            }
+            indexWriter = Files.newBufferedWriter(indexLog, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            LOGGER.log(Level.INFO, "loaded blob index: {0} entries", index.size());
+            migrateUploads();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        indexWriter.close();
+    }
+
+    // the digest is only known at the end, so a duplicate is still written to a temporary file in full.
+    // the write must be admitted by UploadWriter.admit(int) first.
+    public CompletableFuture<StoredBlob> store(String name, InputStream content, AtomicLong budget) {
+        var digest = sha256();
+        var temp = tmp.resolve(UUID.randomUUID().toString());
+        return uploadWriter.writeAdmitted(content, temp, budget, digest)
+                .thenApply(bytes -> {
+                    var hash = HexFormat.of().formatHex(digest.digest());
+                    var duplicate = moveToBlob(temp, hash);
+                    if (duplicate) {
+                        duplicates.increment();
+                    }
+                    register(name, hash);
+                    LOGGER.log(Level.FINE, "stored {0} as {1}, duplicate: {2}", new Object[]{name, hash, duplicate});
+                    return new StoredBlob(name, hash, bytes, duplicate);
+                });
+    }
+
+    public Optional<StoredBlob> find(String name) {
+        return Optional.ofNullable(index.get(name))
+                .map(hash -> {
+                    try {
+                        return new StoredBlob(name, hash, Files.size(blobPath(hash)), false);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "blob of " + name + " is missing: " + hash, e);
+                        return null;
+                    }
+                });
+    }
+
+    public Path blobPath(String hash) {
+        return blobs.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    public Map<String, String> names() {
+        return Collections.unmodifiableMap(index);
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    // returns true if the content is already stored.
+    private boolean moveToBlob(Path temp, String hash) {
+        var blob = blobPath(hash);
+        try {
+            Files.createDirectories(blob.getParent());
+            // unlike a move, the link fails if the blob exists, also when the same content is stored concurrently.
+            Files.createLink(blob, temp);
+            return false;
+        } catch (FileAlreadyExistsException e) {
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "failed to delete temporary file: " + temp, e);
+            }
+        }
+    }
+
+    // the index and its log are updated together, the log replays the same mapping after a restart.
+    private synchronized void register(String name, String hash) {
+        if (hash.equals(index.put(name, hash))) {
+            return;
+        }
+        try {
+            indexWriter.write(hash + "\t" + escape(name));
+            indexWriter.newLine();
+            indexWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the files uploaded before the blob store were saved as /temp/uploads/<name>, they are moved into the blobs.
+    private void migrateUploads() throws IOException {
+        try (var files = Files.list(root)) {
+            for (var file : files.filter(Files::isRegularFile).filter(file -> !file.equals(indexLog)).toList()) {
+                var name = file.getFileName().toString();
+                var digest = sha256();
+                try (var content = new DigestInputStream(Files.newInputStream(file), digest)) {
+                    content.transferTo(OutputStream.nullOutputStream());
+                }
+                var hash = HexFormat.of().formatHex(digest.digest());
+                // the name of a newer upload wins over the old file
+                if (!index.containsKey(name)) {
+                    moveToBlob(file, hash);
+                    register(name, hash);
+                    LOGGER.log(Level.INFO, "migrated upload {0} to blob {1}", new Object[]{name, hash});
+                } else {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    // a name is one field of a line in the index log, the tabs and line breaks in it are escaped.
+    static String escape(String name) {
+        return name.replace("\\", "\\\\")
+                .replace("\t", "\\t")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r");
+    }
+
+    static String unescape(String field) {
+        var name = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            var c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                c = switch (field.charAt(++i)) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> field.charAt(i);
+                };
+            }
+            name.append(c);
+        }
+        return name.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record StoredBlob(String name, String hash, long size, boolean duplicate) {
+    }
+}
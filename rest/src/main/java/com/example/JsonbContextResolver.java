@@ -4,18 +4,47 @@ import jakarta.json.bind.Jsonb;
 import jakarta.json.bind.JsonbBuilder;
 import jakarta.json.bind.JsonbConfig;
 import jakarta.json.bind.config.PropertyNamingStrategy;
+import jakarta.ws.rs.core.Configuration;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.ext.ContextResolver;
 import jakarta.ws.rs.ext.Provider;
 
 // see: https://www.adam-bien.com/roller/abien/entry/jax_rs_json_b_configuration
 @Provider
 public class JsonbContextResolver implements ContextResolver<Jsonb> {
+    // set it to `true` in the application properties or as a system property to switch to the compact output.
+    public static final String COMPACT_PROPERTY = "com.example.jsonb.compact";
+
+    @Context
+    Configuration configuration;
+
+    // Jsonb is thread-safe and expensive to build, all the types share the same instance.
+    private volatile Jsonb jsonb;
+
     @Override
     public Jsonb getContext(Class<?> type) {
+        var result = jsonb;
+        if (result == null) {
+            synchronized (this) {
+                result = jsonb;
+                if (result == null) {
+                    jsonb = result = create(isCompact());
+                }
+            }
+        }
+        return result;
+    }
+
+    public static Jsonb create(boolean compact) {
         JsonbConfig config = new JsonbConfig()
                 .withPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE)
-                .withFormatting(true)
+                .withFormatting(!compact)
                 .withNullValues(false);
         return JsonbBuilder.newBuilder().withConfig(config).build();
     }
+
+    private boolean isCompact() {
+        var value = configuration != null ? configuration.getProperty(COMPACT_PROPERTY) : null;
+        return value != null ? Boolean.parseBoolean(value.toString()) : Boolean.getBoolean(COMPACT_PROPERTY);
+    }
 }
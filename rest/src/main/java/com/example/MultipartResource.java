@@ -1,20 +1,32 @@
 package com.example;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.EntityPart;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,20 +34,14 @@ import java.util.logging.Logger;
 @RequestScoped
 public class MultipartResource {
     private static final Logger LOGGER = Logger.getLogger(MultipartResource.class.getName());
+    // only a single range is supported, e.g. `bytes=0-499`, `bytes=500-` or `bytes=-500`.
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
 
-    java.nio.file.Path uploadedPath;
+    @Inject
+    UploadWriter uploadWriter;
 
-    @PostConstruct
-    public void init() {
-        try {
-            uploadedPath = Paths.get("/temp/uploads");
-            if (!Files.exists(uploadedPath)) {
-                Files.createDirectory(uploadedPath);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
+    @Inject
+    BlobStore blobStore;
 
     @Path("simple")
     @POST
@@ -44,7 +50,7 @@ public class MultipartResource {
             @FormParam("part") EntityPart part) {
         LOGGER.log(Level.INFO, "name: {0} ", name);
         LOGGER.log(
-                Level.INFO,
+                Level.FINE,
                 "uploading file: {0},{1},{2},{3}",
                 new Object[] {
                         part.getMediaType(),
@@ -52,17 +58,16 @@ public class MultipartResource {
                         part.getFileName(),
                         part.getHeaders()
                 });
+        uploadWriter.admit(1);
+        CompletableFuture<BlobStore.StoredBlob> write;
         try {
-            Files.copy(
-                    part.getContent(),
-                    Paths.get(uploadedPath.toString(),
-                            part.getFileName()
-                                    .orElse(generateFileName(UUID.randomUUID().toString(),
-                                            mediaTypeToFileExtension(part.getMediaType())))),
-                    StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            write = blobStore.store(fileName(part), part.getContent(), new AtomicLong(UploadWriter.MAX_UPLOAD_BYTES));
+        } catch (RuntimeException e) {
+            uploadWriter.release(1);
+            throw e;
         }
+        var stored = join(List.of(write));
+        LOGGER.log(Level.INFO, "Uploaded file: {0}", stored.get(0));
         return Response.ok().build();
 
     }
@@ -71,34 +76,45 @@ public class MultipartResource {
     @POST
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     public Response uploadMultiFiles(List<EntityPart> parts) {
-        LOGGER.log(Level.INFO, "Uploading files: {0}", parts.size());
-        parts.forEach(
-                part -> {
-                    LOGGER.log(
-                            Level.INFO,
-                            "uploading multifiles: {0},{1},{2},{3}",
-                            new Object[] {
-                                    part.getMediaType(),
-                                    part.getName(),
-                                    part.getFileName(),
-                                    part.getHeaders()
-                            });
-                    try {
-                        Files.copy(
-                                part.getContent(),
-                                Paths.get(uploadedPath.toString(),
-                                        part.getFileName()
-                                                .orElse(generateFileName(UUID.randomUUID().toString(),
-                                                        mediaTypeToFileExtension(part.getMediaType())))),
-                                StandardCopyOption.REPLACE_EXISTING);
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
+        // all the parts are admitted before the first one is written, a rejected request leaves no file behind.
+        // then every part is handed to the blob store as soon as it is reached, and written in parallel.
+        uploadWriter.admit(parts.size());
+        var budget = new AtomicLong(UploadWriter.MAX_UPLOAD_BYTES);
+        var writes = new ArrayList<CompletableFuture<BlobStore.StoredBlob>>();
+        for (var part : parts) {
+            LOGGER.log(
+                    Level.FINE,
+                    "uploading multifiles: {0},{1},{2},{3}",
+                    new Object[] {
+                            part.getMediaType(),
+                            part.getName(),
+                            part.getFileName(),
+                            part.getHeaders()
+                    });
+            try {
+                writes.add(blobStore.store(fileName(part), part.getContent(), budget));
+            } catch (RuntimeException e) {
+                uploadWriter.release(parts.size() - writes.size());
+                throw e;
+            }
+        }
+        var stored = join(writes);
+        LOGGER.log(Level.INFO, "Uploaded files: {0}, bytes: {1}, duplicates: {2}",
+                new Object[] {
+                        stored.size(),
+                        stored.stream().mapToLong(BlobStore.StoredBlob::size).sum(),
+                        stored.stream().filter(BlobStore.StoredBlob::duplicate).count()
                 });
-
         return Response.ok().build();
     }
 
+    @GET
+    @Path("stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public UploadWriter.UploadStats getUploadStats() {
+        return uploadWriter.getStats();
+    }
+
     @GET
     public List<EntityPart> getFiles() throws IOException {
         List<EntityPart> parts = new ArrayList<>();
@@ -106,28 +122,123 @@ public class MultipartResource {
                 .fileName("abc.text").content("this is a text content")
                 .mediaType(MediaType.TEXT_PLAIN_TYPE)
                 .build());
-        try (var files = Files.list(uploadedPath)) {
-            var partsInUploaded = files
-                    .map(path -> {
-                        var file = path.toFile();
-                        LOGGER.log(Level.INFO, "found uploaded file: {0}", file.getName());
-                        try {
-                            return EntityPart.withName(file.getName())
-                                    .fileName(file.getName())
-                                    .content(new FileInputStream(file))
-                                    .mediaType(fileExtensionToMediaType(getFileExt(file.getName())))
-                                    .build();
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
+        // the blobs are opened one by one while the parts are written, not when they are listed.
+        var partsInUploaded = blobStore.names().entrySet().stream()
+                .map(entry -> {
+                    var fileName = entry.getKey();
+                    var blob = blobStore.blobPath(entry.getValue());
+                    LOGGER.log(Level.FINE, "found uploaded file: {0}", fileName);
+                    try {
+                        return EntityPart.withName(fileName)
+                                .fileName(fileName)
+                                .content((StreamingOutput) output -> Files.copy(blob, output), StreamingOutput.class)
+                                .mediaType(fileExtensionToMediaType(getFileExt(fileName)))
+                                .build();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
+                })
+                .toList();
+        parts.addAll(partsInUploaded);
 
-                    )
-                    .toList();
-            parts.addAll(partsInUploaded);
+        return parts;
+    }
+
+    // download a single file, the content is streamed from the file channel when the response is written.
+    // the files have their own path segment, a file named e.g. `stats` is not shadowed by the other resources.
+    @GET
+    @Path("files/{fileName}")
+    public Response downloadFile(@PathParam("fileName") String fileName,
+                                 @HeaderParam("Range") String range,
+                                 @HeaderParam("If-Range") String ifRange,
+                                 @Context Request request) throws IOException {
+        var blob = blobStore.find(fileName)
+                .orElseThrow(() -> new NotFoundException("File not found: " + fileName));
+        var file = blobStore.blobPath(blob.hash());
+        var length = blob.size();
+        // HTTP dates have a resolution of seconds.
+        var lastModified = new Date(Files.getLastModifiedTime(file).toMillis() / 1000 * 1000);
+        // the content digest is a strong validator.
+        var etag = new EntityTag(blob.hash());
+
+        var preconditions = request.evaluatePreconditions(lastModified, etag);
+        if (preconditions != null) {
+            return preconditions.tag(etag).lastModified(lastModified).build();
         }
 
-        return parts;
+        long start = 0;
+        long end = length - 1;
+        var partial = false;
+        if (range != null && (ifRange == null || ifRange.equals(etag.toString()))) {
+            var matcher = SINGLE_RANGE.matcher(range.trim());
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, length - bytePosition(matcher.group(2)));
+                } else {
+                    start = bytePosition(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, bytePosition(matcher.group(2)));
+                    }
+                }
+                if (start > end) {
+                    return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header("Content-Range", "bytes */" + length)
+                            .build();
+                }
+                partial = true;
+            }
+        }
+
+        var position = start;
+        var count = end - start + 1;
+        StreamingOutput body = output -> {
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                var target = Channels.newChannel(output);
+                var transferred = 0L;
+                while (transferred < count) {
+                    var n = channel.transferTo(position + transferred, count - transferred, target);
+                    if (n <= 0) {
+                        break;
+                    }
+                    transferred += n;
+                }
+            }
+        };
+        var response = partial
+                ? Response.status(Response.Status.PARTIAL_CONTENT)
+                .header("Content-Range", "bytes " + start + "-" + end + "/" + length)
+                : Response.ok();
+        return response.entity(body)
+                .type(fileExtensionToMediaType(getFileExt(fileName)))
+                .header(HttpHeaders.CONTENT_LENGTH, count)
+                .header("Accept-Ranges", "bytes")
+                .tag(etag)
+                .lastModified(lastModified)
+                .build();
+    }
+
+    // the pattern only matches digits, a number too big for a long is past the end of any file.
+    private static long bytePosition(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private String fileName(EntityPart part) {
+        return part.getFileName()
+                .map(name -> Paths.get(name).getFileName().toString())
+                .orElse(generateFileName(UUID.randomUUID().toString(), mediaTypeToFileExtension(part.getMediaType())));
+    }
+
+    private static <T> List<T> join(List<CompletableFuture<T>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
     }
 
     private String getFileExt(String fileName) {
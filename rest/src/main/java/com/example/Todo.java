@@ -7,15 +7,21 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "todos")
+@Cacheable
 public class Todo implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    // a time-ordered UUID is generated instead of `@GeneratedValue(strategy = GenerationType.UUID)`,
+    // the random ones are scattered over the primary key index.
+    @GeneratedValue(generator = TimeOrderedUuidSequence.NAME)
     UUID id;
 
     String title;
     boolean completed = false;
 
+    @Version
+    long version;
+
     public Todo() {
     }
 
@@ -47,12 +53,21 @@ public class Todo implements Serializable {
         this.completed = completed;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Todo{" +
                 "id=" + id +
                 ", title='" + title + '\'' +
                 ", completed=" + completed +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,26 @@
+package com.example;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// hits and misses of the todo lookups in the shared cache.
+@ApplicationScoped
+public class TodoCacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void record(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    public Snapshot snapshot() {
+        var hitCount = hits.sum();
+        var missCount = misses.sum();
+        var total = hitCount + missCount;
+        return new Snapshot(hitCount, missCount, total == 0 ? 0 : (double) hitCount / total);
+    }
+
+    public record Snapshot(long hits, long misses, double hitRatio) {
+    }
+}
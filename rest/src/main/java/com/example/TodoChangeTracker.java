@@ -0,0 +1,26 @@
+package com.example;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.EntityTag;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A table level change counter of the todos, used to compute the ETags of the todo collection
+ * without querying and serializing it.
+ * <p>
+ * The counter lives in memory, the start time is a part of the tags, so the tags issued before a restart do not match.
+ */
+@ApplicationScoped
+public class TodoChangeTracker {
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final AtomicLong changes = new AtomicLong();
+
+    public void changed() {
+        changes.incrementAndGet();
+    }
+
+    public EntityTag tag(String variant) {
+        return new EntityTag(epoch + "-" + changes.get() + "-" + Integer.toHexString(variant.hashCode()));
+    }
+}
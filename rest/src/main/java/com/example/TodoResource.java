@@ -6,6 +6,8 @@ import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 
 @RequestScoped
@@ -14,13 +16,25 @@ public class TodoResource {
     @Inject
     TodoService todoService;
 
+    @Inject
+    // @Context
+    Request request;
+
     @PathParam("id")
     UUID id;
 
     @GET
     public Response getById() {
-        var todos = todoService.findById(id);
-        return Response.ok(todos).build();
+        var todo = todoService.findById(id);
+        if (todo == null) {
+            return Response.ok(todo).build();
+        }
+        var etag = new EntityTag(todo.getId() + "-" + todo.getVersion());
+        var notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag).build();
+        }
+        return Response.ok(todo).tag(etag).build();
     }
 
 }
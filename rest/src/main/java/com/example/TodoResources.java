@@ -2,17 +2,49 @@ package com.example;
 
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbException;
+import jakarta.json.stream.JsonParser;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.container.ResourceContext;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Providers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Path("todos")
 @RequestScoped
 public class TodoResources {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_CHUNK_SIZE = 5000;
 
      @Inject
     //@Context
@@ -22,24 +54,172 @@ public class TodoResources {
     // @Context
     UriInfo uriInfo;
 
+    @Inject
+    // @Context
+    Providers providers;
+
     @Inject
     TodoService todoService;
 
+    @Inject
+    TodoCacheStats cacheStats;
+
+    @Inject
+    TodoChangeTracker changeTracker;
+
+    @Inject
+    // @Context
+    Request request;
+
+    // returns a page of at most `limit` todos, the first one by default, the whole table is read with `/stream`.
     @GET
-    public Response getAllTodos() {
-        var todos = todoService.findAll();
-        return Response.ok(todos).build();
+    public Response getAllTodos(@QueryParam("after") UUID after,
+                                @QueryParam("limit") @DefaultValue("" + DEFAULT_PAGE_SIZE) int limit) {
+        var pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // the tag is computed from the change counter, the page is not loaded if the client's copy is still fresh.
+        var etag = changeTracker.tag(after + ":" + pageSize);
+        var notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag).build();
+        }
+        var todos = todoService.findAll(after, pageSize);
+        var response = Response.ok(todos).tag(etag);
+        if (todos.size() == pageSize) {
+            var next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", todos.get(pageSize - 1).getId())
+                    .replaceQueryParam("limit", pageSize)
+                    .build();
+            response.link(next, "next");
+        }
+        return response.build();
+    }
+
+    // writes the todos as a JSON array while they are read from the database cursor.
+    @GET
+    @Path("stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response streamAllTodos() {
+        var etag = changeTracker.tag("stream");
+        var notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag).build();
+        }
+        var jsonb = jsonb();
+        StreamingOutput body = output -> {
+            var writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writer.write('[');
+            var first = new boolean[]{true};
+            try {
+                todoService.streamAll(todo -> {
+                    try {
+                        if (!first[0]) {
+                            writer.write(',');
+                        }
+                        first[0] = false;
+                        writer.write(jsonb.toJson(todo));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // the EJB container may wrap the exception thrown by the consumer.
+                for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof UncheckedIOException ioe) {
+                        throw ioe.getCause();
+                    }
+                }
+                throw e;
+            }
+            writer.write(']');
+            writer.flush();
+        };
+        return Response.ok(body).tag(etag).build();
     }
 
     @POST
     public Response createTodo(Todo todo) throws Exception {
+        // the id is always generated, one sent by the client is ignored.
+        todo.setId(null);
         var saved = todoService.create(todo);
         return Response.created(uriInfo.getBaseUriBuilder().path("todos/{id}").build(saved.getId())).build();
     }
 
+    // bulk create, the todos are read from a JSON array one by one and saved in a transaction per chunk.
+    @POST
+    @Path("batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response createTodos(InputStream body,
+                                @QueryParam("chunkSize") @DefaultValue("500") int chunkSize) {
+        var jsonb = jsonb();
+        try (var parser = Json.createParser(body)) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new BadRequestException("A JSON array of todos is expected.");
+            }
+            var todos = parser.getArrayStream().map(value -> jsonb.fromJson(value.toString(), Todo.class));
+            return Response.ok(createInChunks(todos, chunkSize)).build();
+        }
+    }
+
+    // bulk create, one todo per line.
+    @POST
+    @Path("batch")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response createTodosFromNdjson(InputStream body,
+                                          @QueryParam("chunkSize") @DefaultValue("500") int chunkSize) {
+        var jsonb = jsonb();
+        var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        var todos = reader.lines()
+                .filter(line -> !line.isBlank())
+                .map(line -> jsonb.fromJson(line, Todo.class));
+        return Response.ok(createInChunks(todos, chunkSize)).build();
+    }
+
+    @GET
+    @Path("cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public TodoCacheStats.Snapshot getCacheStats() {
+        return cacheStats.snapshot();
+    }
+
     @GET
     @Path("{id}")
     public TodoResource subResource() {
         return resourceContext.getResource(TodoResource.class);
     }
+
+    private List<UUID> createInChunks(Stream<Todo> todos, int chunkSize) {
+        var size = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        var ids = new ArrayList<UUID>();
+        var chunk = new ArrayList<Todo>(size);
+        try {
+            todos.forEachOrdered(todo -> {
+                todo.setId(null);
+                chunk.add(todo);
+                if (chunk.size() == size) {
+                    ids.addAll(todoService.createAll(chunk));
+                    chunk.clear();
+                }
+            });
+        } catch (JsonException | JsonbException e) {
+            throw new BadRequestException("Invalid todo at position " + (ids.size() + chunk.size())
+                    + ", the first " + ids.size() + " todos have been saved.", e);
+        }
+        if (!chunk.isEmpty()) {
+            ids.addAll(todoService.createAll(chunk));
+        }
+        return ids;
+    }
+
+    private Jsonb jsonb() {
+        var resolver = providers.getContextResolver(Jsonb.class, MediaType.APPLICATION_JSON_TYPE);
+        var jsonb = resolver != null ? resolver.getContext(Todo.class) : null;
+        return jsonb != null ? jsonb : DefaultJsonb.INSTANCE;
+    }
+
+    // created on first use and shared, a Jsonb per request would never be closed.
+    private static final class DefaultJsonb {
+        static final Jsonb INSTANCE = JsonbBuilder.create();
+    }
 }
@@ -1,31 +1,149 @@
 package com.example;
 
 
+import jakarta.annotation.Resource;
 import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.transaction.Transactional;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Stateless
 public class TodoService {
+    // rows fetched per JDBC round-trip, and rows kept in the persistence context before it is cleared.
+    private static final int STREAM_FETCH_SIZE = 500;
+    // keep it in sync with the JDBC batch size in persistence.xml.
+    private static final int BATCH_SIZE = 50;
+    // the size and expiry(ms) of the cached "find all" query results.
+    private static final int QUERY_CACHE_SIZE = 100;
+    private static final int QUERY_CACHE_EXPIRY = 60_000;
+    // the names of the page queries added to the entity manager factory.
+    private static final Set<String> PAGE_QUERIES = ConcurrentHashMap.newKeySet();
 
     @PersistenceContext
     EntityManager entityManager;
 
+    @Inject
+    TodoCacheStats cacheStats;
+
+    @Inject
+    TodoChangeTracker changeTracker;
+
+    @Resource
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
    @Transactional
     public Todo create(Todo data) {
         entityManager.persist(data);
+        changedAfterCommit();
         return data;
     }
 
+    /**
+     * Persists the todos in one transaction, the inserts are sent in JDBC batches and
+     * the persistence context is flushed and cleared after every batch.
+     */
+    @Transactional
+    public List<UUID> createAll(List<Todo> todos) {
+        for (int i = 0; i < todos.size(); i++) {
+            entityManager.persist(todos.get(i));
+            if ((i + 1) % BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        changedAfterCommit();
+        return todos.stream().map(Todo::getId).toList();
+    }
+
     public Todo findById(UUID id) {
+        cacheStats.record(entityManager.getEntityManagerFactory().getCache().contains(Todo.class, id));
         return entityManager.find(Todo.class, id);
     }
 
-    public List<Todo> findAll() {
-        return entityManager.createQuery("select t from Todo t", Todo.class).getResultList();
+    /**
+     * Keyset pagination: returns at most {@code limit} todos ordered by id, starting right after the given id.
+     * <p>
+     * The results are cached per page, the providers invalidate them when a todo is inserted or updated.
+     */
+    public List<Todo> findAll(UUID after, int limit) {
+        var query = pageQuery(after == null, limit);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        return query.getResultList();
+    }
+
+    // EclipseLink keeps the cached results of a named query per parameter values only, the page size is not
+    // a parameter, so every page size gets a named query of its own. The sizes are bounded by the resource.
+    private TypedQuery<Todo> pageQuery(boolean first, int limit) {
+        var name = (first ? "Todo.firstPage." : "Todo.pageAfter.") + limit;
+        if (!PAGE_QUERIES.contains(name)) {
+            var query = first
+                    ? entityManager.createQuery("select t from Todo t order by t.id", Todo.class)
+                    : entityManager.createQuery("select t from Todo t where t.id > :after order by t.id", Todo.class);
+            query.setMaxResults(limit)
+                    // for Glassfish/Payara/EclipseLink
+                    .setHint("eclipselink.query-results-cache", true)
+                    .setHint("eclipselink.query-results-cache.size", QUERY_CACHE_SIZE)
+                    .setHint("eclipselink.query-results-cache.expiry", QUERY_CACHE_EXPIRY)
+                    // for WildFly/Hibernate
+                    .setHint("org.hibernate.cacheable", true);
+            entityManager.getEntityManagerFactory().addNamedQuery(name, query);
+            PAGE_QUERIES.add(name);
+        }
+        return entityManager.createNamedQuery(name, Todo.class);
+    }
+
+    /**
+     * Scrolls through all todos with a database cursor and hands them to the consumer one by one,
+     * the consumer is invoked inside the transaction, so the cursor stays open while it writes.
+     */
+    public void streamAll(Consumer<Todo> consumer) {
+        var query = entityManager.createQuery("select t from Todo t order by t.id", Todo.class)
+                // for Glassfish/Payara/EclipseLink
+                .setHint("eclipselink.cursor", true)
+                .setHint("eclipselink.read-only", true)
+                .setHint("eclipselink.jdbc.fetch-size", STREAM_FETCH_SIZE)
+                // for WildFly/Hibernate
+                .setHint("org.hibernate.readOnly", true)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE);
+        try (var todos = query.getResultStream()) {
+            var count = 0;
+            for (var it = todos.iterator(); it.hasNext(); ) {
+                consumer.accept(it.next());
+                if (++count % STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    // bump the change counter once the new data is visible to the other transactions.
+    private void changedAfterCommit() {
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    changeTracker.changed();
+                }
+            }
+        });
     }
 }
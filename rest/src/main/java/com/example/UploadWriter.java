@@ -0,0 +1,183 @@
+package com.example;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorDefinition;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes uploaded content to disk on a dedicated executor.
+ * <p>
+ * The number of concurrent writes is bounded by the direct buffers in the pool, when all of them are in use
+ * (e.g. the disk is slow), the new writes wait for a free one on the executor, not on the request thread.
+ * When too many writes are pending the new ones are rejected with a 503 right away.
+ */
+@ManagedExecutorDefinition(name = "java:module/concurrent/UploadExecutor",
+        maxAsync = UploadWriter.MAX_CONCURRENT_WRITES
+)
+@ApplicationScoped
+public class UploadWriter {
+    private static final Logger LOGGER = Logger.getLogger(UploadWriter.class.getName());
+
+    static final int MAX_CONCURRENT_WRITES = 8;
+    // the writes queued on the executor and the running ones.
+    static final int MAX_PENDING_WRITES = 8 * MAX_CONCURRENT_WRITES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // the max bytes accepted in a single upload request, all the parts included.
+    public static final long MAX_UPLOAD_BYTES = Long.getLong("com.example.upload.max-bytes", 1L << 30);
+
+    @Resource(lookup = "java:module/concurrent/UploadExecutor")
+    ManagedExecutorService executorService;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(MAX_CONCURRENT_WRITES);
+
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder nanosWriting = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < MAX_CONCURRENT_WRITES; i++) {
+            buffers.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+    }
+
+    /**
+     * Copies the content into the target file asynchronously.
+     *
+     * @param budget the bytes left for the current upload request, shared by all of its parts.
+     * @param digest updated with the content while it is written, can be null.
+     * @return the number of bytes written.
+     */
+    public CompletableFuture<Long> write(InputStream content, Path target, AtomicLong budget, MessageDigest digest) {
+        admit(1);
+        try {
+            return writeAdmitted(content, target, budget, digest);
+        } catch (RuntimeException e) {
+            release(1);
+            throw e;
+        }
+    }
+
+    // admits all the writes of a request or none of them, a rejected request has not started any write.
+    public void admit(int writes) {
+        if (pending.addAndGet(writes) > MAX_PENDING_WRITES) {
+            pending.addAndGet(-writes);
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many uploads in progress, try again later.", 1L);
+        }
+    }
+
+    // gives back the admitted writes that will not be started.
+    public void release(int writes) {
+        pending.addAndGet(-writes);
+    }
+
+    // starts a write admitted by admit(int), its slot is given back when it completes, or by the caller when
+    // it cannot be started.
+    public CompletableFuture<Long> writeAdmitted(InputStream content, Path target, AtomicLong budget,
+                                                 MessageDigest digest) {
+        return executorService.supplyAsync(() -> copy(content, target, budget, digest))
+                .whenComplete((bytes, error) -> pending.decrementAndGet());
+    }
+
+    public UploadStats getStats() {
+        var bytes = bytesWritten.sum();
+        var seconds = nanosWriting.sum() / 1_000_000_000.0;
+        return new UploadStats(
+                filesWritten.sum(),
+                bytes,
+                rejected.sum(),
+                MAX_CONCURRENT_WRITES - buffers.size(),
+                pending.get(),
+                seconds > 0 ? bytes / seconds : 0
+        );
+    }
+
+    private long copy(InputStream content, Path target, AtomicLong budget, MessageDigest digest) {
+        // a buffer is the permit to write, only an executor thread waits for it.
+        ByteBuffer buffer;
+        try {
+            buffer = buffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for a free writer.");
+        }
+        var started = System.nanoTime();
+        var total = 0L;
+        try (var source = Channels.newChannel(content);
+             var channel = FileChannel.open(target,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (source.read(buffer.clear()) != -1) {
+                var read = buffer.flip().remaining();
+                if (budget.addAndGet(-read) < 0) {
+                    throw new ClientErrorException("Upload exceeds " + MAX_UPLOAD_BYTES + " bytes.",
+                            Response.Status.REQUEST_ENTITY_TOO_LARGE);
+                }
+                if (digest != null) {
+                    digest.update(buffer);
+                    buffer.rewind();
+                }
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                total += read;
+            }
+        } catch (IOException e) {
+            deleteQuietly(target);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        } finally {
+            buffers.offer(buffer);
+        }
+
+        var elapsed = System.nanoTime() - started;
+        filesWritten.increment();
+        bytesWritten.add(total);
+        nanosWriting.add(elapsed);
+        LOGGER.log(Level.FINE, "written {0} bytes to {1} in {2} ms",
+                new Object[]{total, target.getFileName(), TimeUnit.NANOSECONDS.toMillis(elapsed)});
+        return total;
+    }
+
+    private void deleteQuietly(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "failed to delete incomplete upload: " + target, e);
+        }
+    }
+
+    public record UploadStats(long files, long bytes, long rejected, int activeWrites, int pendingWrites,
+                              double bytesPerSecond) {
+    }
+}
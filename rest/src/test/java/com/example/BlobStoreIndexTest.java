@@ -0,0 +1,24 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BlobStoreIndexTest {
+
+    @Test
+    public void testEscapeName() {
+        assertThat(BlobStore.escape("plain.txt")).isEqualTo("plain.txt");
+        var name = "a\tb\nc\rd\\e.txt";
+        var escaped = BlobStore.escape(name);
+        assertThat(escaped).doesNotContain("\t", "\n", "\r");
+        assertThat(BlobStore.unescape(escaped)).isEqualTo(name);
+    }
+
+    @Test
+    public void testUnescapeNamesOfOldIndex() {
+        // the names written before the escaping are read back unchanged
+        assertThat(BlobStore.unescape("report 2024.txt")).isEqualTo("report 2024.txt");
+        assertThat(BlobStore.unescape("trailing\\")).isEqualTo("trailing\\");
+    }
+}
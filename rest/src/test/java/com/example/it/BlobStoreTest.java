@@ -0,0 +1,71 @@
+package com.example.it;
+
+import com.example.BlobStore;
+import com.example.UploadWriter;
+import jakarta.inject.Inject;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit5.ArquillianExtension;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(ArquillianExtension.class)
+public class BlobStoreTest {
+
+    private final static Logger LOGGER = Logger.getLogger(BlobStoreTest.class.getName());
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return ShrinkWrap.create(WebArchive.class)
+                .addClasses(BlobStore.class, UploadWriter.class)
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    @Inject
+    BlobStore blobStore;
+
+    @Inject
+    UploadWriter uploadWriter;
+
+    @Test
+    public void testStoreSameContentOnce() throws Exception {
+        // unique content, the blobs of the earlier runs are kept
+        var content = ("dedup " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        var duplicates = blobStore.getDuplicates();
+        uploadWriter.admit(2);
+
+        var first = blobStore.store("first.txt", new ByteArrayInputStream(content), new AtomicLong(1024))
+                .get(10, TimeUnit.SECONDS);
+        var second = blobStore.store("second.txt", new ByteArrayInputStream(content), new AtomicLong(1024))
+                .get(10, TimeUnit.SECONDS);
+        LOGGER.log(Level.INFO, "stored: {0}, {1}", new Object[]{first, second});
+
+        assertFalse(first.duplicate());
+        assertTrue(second.duplicate());
+        assertEquals(first.hash(), second.hash());
+        assertEquals(duplicates + 1, blobStore.getDuplicates());
+        assertEquals(first.hash(), blobStore.names().get("first.txt"));
+        assertEquals(first.hash(), blobStore.names().get("second.txt"));
+
+        // a single blob holds the content of both names, the temporary links are gone
+        var blob = blobStore.blobPath(first.hash());
+        assertEquals(1, Files.getAttribute(blob, "unix:nlink"));
+        assertEquals(content.length, Files.size(blob));
+        assertEquals(content.length, blobStore.find("second.txt").orElseThrow().size());
+    }
+}
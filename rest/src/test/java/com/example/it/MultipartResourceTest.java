@@ -18,8 +18,10 @@ under the License.
  */
 package com.example.it;
 
+import com.example.BlobStore;
 import com.example.MultipartResource;
 import com.example.RestConfig;
+import com.example.UploadWriter;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Entity;
@@ -46,6 +48,9 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(ArquillianExtension.class)
 public class MultipartResourceTest {
@@ -63,7 +68,7 @@ public class MultipartResourceTest {
                 .asFile();
         var war = ShrinkWrap.create(WebArchive.class)
                 .addAsLibraries(extraJars)
-                .addClasses(MultipartResource.class, RestConfig.class)
+                .addClasses(MultipartResource.class, UploadWriter.class, BlobStore.class, RestConfig.class)
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
         LOGGER.log(Level.INFO, "war deployment: {0}", new Object[] { war.toString(true) });
         return war;
@@ -124,6 +129,21 @@ public class MultipartResourceTest {
         LOGGER.log(Level.INFO, "Upload multiple files response status: {0}", r.getStatus());
     }
 
+    @Test
+    @RunAsClient
+    public void testGetUploadStats() throws Exception {
+        testUploadMultiFiles();
+
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/multiparts/stats"));
+        Response r = target.request().accept(MediaType.APPLICATION_JSON_TYPE).get();
+        assertEquals(200, r.getStatus());
+        String jsonString = r.readEntity(String.class);
+        LOGGER.log(Level.INFO, "Get upload stats: {0}", jsonString);
+        assertTrue(jsonString.contains("\"files\""));
+        assertTrue(jsonString.contains("\"pendingWrites\""));
+        assertFalse(jsonString.contains("\"files\":0"));
+    }
+
     @Test
     @RunAsClient
     public void testGetFiles() {
@@ -144,4 +164,55 @@ public class MultipartResourceTest {
                         part.getHeaders()
                 }));
     }
+
+    @Test
+    @RunAsClient
+    public void testDownloadFile() throws Exception {
+        testUploadSingleFile();
+
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/multiparts/files/test.txt"));
+        Response r = target.request().get();
+        LOGGER.log(Level.INFO, "Download file response status: {0}", r.getStatus());
+        assertEquals(200, r.getStatus());
+        var etag = r.getEntityTag();
+        assertNotNull(etag);
+        assertEquals("test", r.readEntity(String.class));
+
+        Response notModified = target.request().header(HttpHeaders.IF_NONE_MATCH, etag).get();
+        assertEquals(304, notModified.getStatus());
+
+        Response partial = target.request().header("Range", "bytes=1-2").get();
+        assertEquals(206, partial.getStatus());
+        assertEquals("bytes 1-2/4", partial.getHeaderString("Content-Range"));
+        assertEquals("es", partial.readEntity(String.class));
+
+        // the positions overflowing a long are clamped to the end of the file instead of failing the request.
+        Response tail = target.request().header("Range", "bytes=2-99999999999999999999").get();
+        assertEquals(206, tail.getStatus());
+        assertEquals("bytes 2-3/4", tail.getHeaderString("Content-Range"));
+        assertEquals("st", tail.readEntity(String.class));
+
+        Response unsatisfiable = target.request().header("Range", "bytes=99999999999999999999-").get();
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */4", unsatisfiable.getHeaderString("Content-Range"));
+    }
+
+    @Test
+    @RunAsClient
+    public void testDownloadFileNamedStats() throws Exception {
+        var upload = client.target(URI.create(baseUrl.toExternalForm() + "api/multiparts/simple"));
+        var part = EntityPart.withName("part").fileName("stats")
+                .content(this.getClass().getResourceAsStream("/test.txt"))
+                .mediaType(MediaType.TEXT_PLAIN_TYPE)
+                .build();
+        var name = EntityPart.withName("name").content("stats").build();
+        var genericEntity = new GenericEntity<List<EntityPart>>(List.of(name, part)) {
+        };
+        assertEquals(200, upload.request().post(Entity.entity(genericEntity, MediaType.MULTIPART_FORM_DATA)).getStatus());
+
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/multiparts/files/stats"));
+        Response r = target.request().get();
+        assertEquals(200, r.getStatus());
+        assertEquals("test", r.readEntity(String.class));
+    }
 }
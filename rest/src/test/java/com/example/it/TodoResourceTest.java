@@ -21,6 +21,9 @@ package com.example.it;
 import com.example.*;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.jboss.arquillian.container.test.api.Deployment;
@@ -39,6 +42,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import java.io.File;
 import java.net.URI;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -65,11 +71,15 @@ public class TodoResourceTest {
                         TodoResource.class,
                         TodoResources.class,
                         TodoService.class,
+                        TodoCacheStats.class,
+                        TodoChangeTracker.class,
                         Todo.class,
+                        TimeOrderedUuid.class, TimeOrderedUuidSequence.class,
                         TodoSamples.class,
                         RestConfig.class
                 )
                 .addAsResource("test-persistence.xml", "META-INF/persistence.xml")
+                .addAsResource("META-INF/eclipselink-orm.xml")
                 .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
         LOGGER.log(Level.INFO, "war deployment: {0}", new Object[]{war.toString(true)});
         return war;
@@ -98,7 +108,119 @@ public class TodoResourceTest {
         Response r = target.request().accept(MediaType.APPLICATION_JSON_TYPE).get();
         LOGGER.log(Level.INFO, "Get /todos response status: {0}", r.getStatus());
         assertEquals(200, r.getStatus());
+        var todos = r.readEntity(new GenericType<List<Map<String, Object>>>() {
+        });
+        LOGGER.log(Level.INFO, "Get /todos result: {0}", todos);
+        // without paging parameters the first page is returned, not the whole table.
+        assertThat(todos).hasSizeLessThanOrEqualTo(50);
+        if (todos.size() < 50) {
+            assertThat(r.getLink("next")).isNull();
+        }
+    }
+
+    @Test
+    @RunAsClient
+    public void testGetTodosPage() throws Exception {
+        // the other tests add todos too, the page size is derived from the count taken right before paging.
+        var batch = client.target(URI.create(baseUrl.toExternalForm() + "api/todos/batch"));
+        var json = "[{\"Title\":\"page todo 1\"},{\"Title\":\"page todo 2\"},{\"Title\":\"page todo 3\"}]";
+        assertEquals(200, batch.request().accept(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(json)).getStatus());
+        var all = client.target(URI.create(baseUrl.toExternalForm() + "api/todos/stream"))
+                .request().accept(MediaType.APPLICATION_JSON_TYPE)
+                .get(new GenericType<List<Map<String, Object>>>() {
+                });
+        var limit = all.size() - 1;
+        assertThat(limit).isGreaterThanOrEqualTo(2);
+
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/todos")).queryParam("limit", limit);
+        Response r = target.request().accept(MediaType.APPLICATION_JSON_TYPE).get();
+        LOGGER.log(Level.INFO, "Get /todos?limit={0} response status: {1}", new Object[]{limit, r.getStatus()});
+        assertEquals(200, r.getStatus());
+        assertThat(r.readEntity(new GenericType<List<Map<String, Object>>>() {
+        })).hasSize(limit);
+        var next = r.getLink("next");
+        assertThat(next).isNotNull();
+        LOGGER.log(Level.INFO, "Get /todos?limit={0} next link: {1}", new Object[]{limit, next.getUri()});
+
+        var nextPage = client.target(next.getUri()).request().accept(MediaType.APPLICATION_JSON_TYPE).get();
+        assertEquals(200, nextPage.getStatus());
+        assertThat(nextPage.readEntity(new GenericType<List<Map<String, Object>>>() {
+        })).hasSize(1);
+        assertThat(nextPage.getLink("next")).isNull();
+    }
+
+    @Test
+    @RunAsClient
+    public void testStreamTodos() throws Exception {
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/todos/stream"));
+        Response r = target.request().accept(MediaType.APPLICATION_JSON_TYPE).get();
+        LOGGER.log(Level.INFO, "Get /todos/stream response status: {0}", r.getStatus());
+        assertEquals(200, r.getStatus());
+        String jsonString = r.readEntity(String.class);
+        LOGGER.log(Level.INFO, "Get /todos/stream result string: {0}", jsonString);
+        assertThat(jsonString).startsWith("[").endsWith("]");
+    }
+
+    @Test
+    @RunAsClient
+    public void testCreateTodosInBatch() throws Exception {
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/todos/batch"));
+        var json = "[{\"Title\":\"batch todo 1\"},{\"Title\":\"batch todo 2\"}]";
+        Response r = target.request().accept(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(json));
+        LOGGER.log(Level.INFO, "Post /todos/batch response status: {0}", r.getStatus());
+        assertEquals(200, r.getStatus());
         String jsonString = r.readEntity(String.class);
-        LOGGER.log(Level.INFO, "Get /todos result string: {0}", jsonString);
+        LOGGER.log(Level.INFO, "Post /todos/batch result string: {0}", jsonString);
+        assertThat(jsonString.split(",")).hasSize(2);
+
+        var ndjson = "{\"Title\":\"batch todo 3\"}\n{\"Title\":\"batch todo 4\"}\n";
+        Response ndjsonResponse = target.request().accept(MediaType.APPLICATION_JSON_TYPE)
+                .post(Entity.entity(ndjson, TodoResources.APPLICATION_NDJSON));
+        assertEquals(200, ndjsonResponse.getStatus());
+    }
+
+    @Test
+    @RunAsClient
+    public void testCreateTodoIgnoresClientId() throws Exception {
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/todos"));
+        var clientId = UUID.randomUUID();
+        var json = "{\"Id\":\"" + clientId + "\",\"Title\":\"client id todo\"}";
+        Response r = target.request().post(Entity.json(json));
+        assertEquals(201, r.getStatus());
+        LOGGER.log(Level.INFO, "Post /todos location: {0}", r.getLocation());
+        // the id in the location is a generated time-ordered one
+        var path = r.getLocation().getPath();
+        var id = UUID.fromString(path.substring(path.lastIndexOf('/') + 1));
+        assertThat(id).isNotEqualTo(clientId);
+        assertEquals(7, id.version());
+    }
+
+    @Test
+    @RunAsClient
+    public void testGetCacheStats() throws Exception {
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/todos/cache"));
+        Response r = target.request().accept(MediaType.APPLICATION_JSON_TYPE).get();
+        LOGGER.log(Level.INFO, "Get /todos/cache response status: {0}", r.getStatus());
+        assertEquals(200, r.getStatus());
+        String jsonString = r.readEntity(String.class);
+        LOGGER.log(Level.INFO, "Get /todos/cache result string: {0}", jsonString);
+        assertThat(jsonString).containsIgnoringCase("hitRatio");
+    }
+
+    @Test
+    @RunAsClient
+    public void testGetTodosNotModified() throws Exception {
+        var target = client.target(URI.create(baseUrl.toExternalForm() + "api/todos"));
+        Response r = target.request().accept(MediaType.APPLICATION_JSON_TYPE).get();
+        assertEquals(200, r.getStatus());
+        var etag = r.getEntityTag();
+        LOGGER.log(Level.INFO, "Get /todos ETag: {0}", etag);
+        assertThat(etag).isNotNull();
+
+        Response notModified = target.request().accept(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .get();
+        LOGGER.log(Level.INFO, "Get /todos with If-None-Match response status: {0}", notModified.getStatus());
+        assertEquals(304, notModified.getStatus());
     }
 }
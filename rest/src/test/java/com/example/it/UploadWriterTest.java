@@ -0,0 +1,132 @@
+package com.example.it;
+
+import com.example.UploadWriter;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit5.ArquillianExtension;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(ArquillianExtension.class)
+public class UploadWriterTest {
+
+    private final static Logger LOGGER = Logger.getLogger(UploadWriterTest.class.getName());
+
+    @Deployment
+    public static WebArchive createDeployment() {
+        return ShrinkWrap.create(WebArchive.class)
+                .addClasses(UploadWriter.class, AwaitingInputStream.class)
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    @Inject
+    UploadWriter uploadWriter;
+
+    @Test
+    public void testRejectUploadOverBudget() throws Exception {
+        var target = Files.createTempFile("upload-writer-test", ".txt");
+        var content = new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8));
+
+        var write = uploadWriter.write(content, target, new AtomicLong(4), null);
+
+        var error = assertThrows(ExecutionException.class, () -> write.get(10, TimeUnit.SECONDS));
+        LOGGER.log(Level.INFO, "over budget: {0}", error.getCause());
+        var tooLarge = assertInstanceOf(ClientErrorException.class, error.getCause());
+        assertEquals(413, tooLarge.getResponse().getStatus());
+        // the incomplete file is removed
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    public void testRejectRequestOverPendingWrites() {
+        var pending = uploadWriter.getStats().pendingWrites();
+
+        // the writes of a request are admitted together, a request with too many parts starts none of them.
+        assertThrows(ServiceUnavailableException.class, () -> uploadWriter.admit(10_000));
+        assertEquals(pending, uploadWriter.getStats().pendingWrites());
+
+        uploadWriter.admit(2);
+        assertEquals(pending + 2, uploadWriter.getStats().pendingWrites());
+        uploadWriter.release(2);
+        assertEquals(pending, uploadWriter.getStats().pendingWrites());
+    }
+
+    @Test
+    public void testWritePartsInParallel() throws Exception {
+        // every part blocks on its first read until all the parts are being read, sequential writes would time out.
+        var parts = 4;
+        var started = new CountDownLatch(parts);
+        var budget = new AtomicLong(1024);
+        var targets = new ArrayList<Path>();
+        var writes = new ArrayList<CompletableFuture<Long>>();
+        for (int i = 0; i < parts; i++) {
+            var target = Files.createTempFile("upload-writer-test", ".txt");
+            targets.add(target);
+            var content = new AwaitingInputStream(("part " + i).getBytes(StandardCharsets.UTF_8), started);
+            writes.add(uploadWriter.write(content, target, budget, null));
+        }
+
+        for (int i = 0; i < parts; i++) {
+            assertEquals(6L, writes.get(i).get(10, TimeUnit.SECONDS));
+            assertArrayEquals(("part " + i).getBytes(StandardCharsets.UTF_8), Files.readAllBytes(targets.get(i)));
+            Files.delete(targets.get(i));
+        }
+        assertEquals(1024 - 6 * parts, budget.get());
+
+        var stats = uploadWriter.getStats();
+        LOGGER.log(Level.INFO, "upload stats: {0}", stats);
+        assertTrue(stats.files() >= parts);
+    }
+
+    static class AwaitingInputStream extends ByteArrayInputStream {
+        private final CountDownLatch started;
+        private boolean first = true;
+
+        AwaitingInputStream(byte[] content, CountDownLatch started) {
+            super(content);
+            this.started = started;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            if (first) {
+                first = false;
+                started.countDown();
+                try {
+                    if (!started.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("the parts are not written in parallel");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return super.read(b, off, len);
+        }
+    }
+}